@@ -0,0 +1,142 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.block;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+// An integer such as coins, coinage or difficulty. Values that fit in a long are kept
+// in one and computed on with overflow checks; a result that does not fit, and
+// everything computed from it, falls back to BigInteger. The results are the same as
+// with BigInteger throughout.
+public final class Amount implements Comparable<Amount> {
+	public static final Amount ZERO = new Amount(0, null);
+
+	private final long value;
+	// the value when it does not fit in a long, otherwise null
+	private final BigInteger big;
+
+	private Amount(long value, BigInteger big){
+		this.value = value;
+		this.big = big;
+	}
+
+	public static Amount valueOf(long value){
+		return value == 0 ? ZERO : new Amount(value, null);
+	}
+
+	public static Amount valueOf(BigInteger value){
+		return value.bitLength() < Long.SIZE ? valueOf(value.longValue()) : new Amount(0, value);
+	}
+
+	public Amount add(Amount other){
+		if(this.big == null && other.big == null){
+			long sum = this.value + other.value;
+			if(((this.value ^ sum) & (other.value ^ sum)) >= 0) return valueOf(sum);
+		}
+		return valueOf(this.toBigInteger().add(other.toBigInteger()));
+	}
+
+	public Amount subtract(Amount other){
+		if(this.big == null && other.big == null){
+			long difference = this.value - other.value;
+			if(((this.value ^ other.value) & (this.value ^ difference)) >= 0) return valueOf(difference);
+		}
+		return valueOf(this.toBigInteger().subtract(other.toBigInteger()));
+	}
+
+	public Amount multiply(long factor){
+		if(this.big == null){
+			long high = Math.multiplyHigh(this.value, factor);
+			long low = this.value * factor;
+			// the product fits if the high word only repeats the sign of the low word
+			if(high == (low >> 63)) return valueOf(low);
+		}
+		return valueOf(this.toBigInteger().multiply(BigInteger.valueOf(factor)));
+	}
+
+	public Amount multiply(Amount other){
+		return other.big == null ? this.multiply(other.value) : valueOf(this.toBigInteger().multiply(other.big));
+	}
+
+	// this * factor exactly, truncated toward zero like BigDecimal.toBigInteger()
+	public Amount multiply(double factor){
+		if(this.big == null && this.value >= 0 && factor >= 0 && !Double.isInfinite(factor)){
+			long bits = Double.doubleToRawLongBits(factor);
+			int exponent = (int) (bits >>> 52) & 0x7ff;
+			long mantissa = bits & 0xfffffffffffffL;
+			// factor = mantissa * 2^exponent
+			if(exponent == 0){
+				exponent = -1074;
+			}else{
+				mantissa |= 1L << 52;
+				exponent -= 1075;
+			}
+			// the 128 bit product of two non-negative longs
+			long high = Math.multiplyHigh(this.value, mantissa);
+			long low = this.value * mantissa;
+			if(exponent >= 0){
+				if(high == 0 && exponent < 63 && low >>> (63 - exponent) == 0) return valueOf(low << exponent);
+			}else{
+				int shift = -exponent;
+				if(shift >= 128) return ZERO;
+				if(shift >= 64) return valueOf(high >>> (shift - 64));
+				if(high >>> shift == 0){
+					long result = (low >>> shift) | (high << (64 - shift));
+					if(result >= 0) return valueOf(result);
+				}
+			}
+		}
+		return valueOf(new BigDecimal(this.toBigInteger()).multiply(new BigDecimal(factor)).toBigInteger());
+	}
+
+	// this / divisor, truncated toward zero
+	public Amount divide(long divisor){
+		if(this.big == null && !(this.value == Long.MIN_VALUE && divisor == -1)) return valueOf(this.value / divisor);
+		return valueOf(this.toBigInteger().divide(BigInteger.valueOf(divisor)));
+	}
+
+	public double doubleValue(){
+		return this.big == null ? (double) this.value : this.big.doubleValue();
+	}
+
+	public BigInteger toBigInteger(){
+		return this.big == null ? BigInteger.valueOf(this.value) : this.big;
+	}
+
+	@Override
+	public int compareTo(Amount other){
+		if(this.big == null && other.big == null) return Long.compare(this.value, other.value);
+		return this.toBigInteger().compareTo(other.toBigInteger());
+	}
+
+	@Override
+	public boolean equals(Object other){
+		if(!(other instanceof Amount)) return false;
+		Amount amount = (Amount) other;
+		return this.big == null ? amount.big == null && this.value == amount.value : this.big.equals(amount.big);
+	}
+
+	@Override
+	public int hashCode(){
+		return this.big == null ? Long.hashCode(this.value) : this.big.hashCode();
+	}
+
+	@Override
+	public String toString(){
+		return this.big == null ? Long.toString(this.value) : this.big.toString();
+	}
+}
@@ -15,72 +15,75 @@
  */
 package SimBlock.block;
 
+import SimBlock.block.hashing.AbstractHashing;
 import SimBlock.node.Node;
-import SimBlock.node.StringUtil;
+import SimBlock.simulator.SimulationContext;
 
 import static SimBlock.settings.SimulationConfiguration.*;
 
-import java.text.SimpleDateFormat;   // Add By Viddi
-
+// A view of one block in the BlockStore of its simulation run
 public class Block {
-	private int height;
-	private Block parent;
-	private Node minter;
-	private long time;
-	private int id;
-	private int idHeight = 0;
-	// Added and Modified By Viddi
-	private int Noncenya;      													// Add By Viddi
-	private String Hashnya;															// Add By Viddi
-	private String PrevHashnya;													// Add By Viddi
-	private String TimeStamp;														// Add By Viddi
-	// End of Addition and Modified By Viddi
-	private static int latestId = 0;
+	private static final AbstractHashing hashing = AbstractHashing.create(HASHING);
+
+	private final BlockStore store;
+	// position in the store, in the order blocks were created
+	private final int index;
+	// 0 for the genesis block, otherwise numbered by the minter, see Node.nextBlockId
+	private final int id;
 
 // Added and Modified By Viddi
 //  Penambahan int Noncenya   By Viddi
 //	public Block(Block parent, Node minter, long time){
 	public Block(Block parent, Node minter, long time, int Noncenya){
 // End of Addition and Modified By Viddi
-		this.height = parent == null ? 0 : parent.getHeight() + 1;
-		this.parent = parent;
-		this.minter = minter;
-		this.time = time;
-		this.id = latestId;
+		this.store = SimulationContext.get().getBlockStore();
+		this.id = parent == null ? 0 : minter.nextBlockId();
+		this.index = this.store.add(this, parent == null ? -1 : parent.getIndex(), minter, time, Noncenya);
 
 		// Added and Modified By Viddi
-		this.TimeStamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date());
-		this.Noncenya = Noncenya;
-		if (latestId == 0){
-			this.Hashnya = this.HitungHash();
-			this.PrevHashnya = "0";
-			idHeight = 0;
-			System.out.println("Genesis "+idHeight);
+		if(!hashing.isLazy()){
+			this.CariMine(this.store.getDifficulty(this.index));
+		}
+		if (this.id == 0){
+			System.out.println("Genesis "+this.id);
 		}
 		else{
-			this.Hashnya = this.HitungHash();
-			this.CariMine(DIFFICULTY);
-			this.PrevHashnya = parent.getHashnya();
-			idHeight = latestId;
-			System.out.println("chain "+idHeight);
+			System.out.println("chain "+this.id);
 		}
 		// End of Addition and Modified By Viddi
+	}
 
-		latestId++;
+	// an entry of store that is not mined and has no minter, for building block trees without a simulation
+	Block(BlockStore store, Block parent){
+		this.store = store;
+		this.id = 0;
+		this.index = store.add(this, parent == null ? -1 : parent.getIndex(), null, 0, 0);
 	}
 
-	public int getHeight(){return this.height;}
-	public Block getParent(){return this.parent;}
-	public Node getMinter(){return this.minter;}
-	public long getTime(){return this.time;}
+	public int getHeight(){return this.store.getHeight(this.index);}
+	public Block getParent(){return this.store.getBlock(this.store.getParentId(this.index));}
+	public Node getMinter(){return this.store.getMinter(this.index);}
+	public long getTime(){return this.store.getTime(this.index);}
 	public int getId() {return this.id;}
+	int getIndex() {return this.index;}
+	BlockStore getStore() {return this.store;}
 
 	// Added and Modified By Viddi
-	public int getidHeight() {return this.idHeight;}
-	public int getNoncenya() {return this.Noncenya;}			// Add By Viddi
-	public String getHashnya() {return this.Hashnya;}			// Add By Viddi
-	public String getPrevHashnya() {return this.PrevHashnya;}			// Add By Viddi
-	public String getTimeStamp() {return this.TimeStamp;}			// Add By Viddi
+	public int getidHeight() {return this.id;}
+	public int getNoncenya() {								// Add By Viddi
+		if(!this.store.isMined(this.index)) this.resolve();
+		return this.store.getNonce(this.index);
+	}
+	public String getHashnya() {							// Add By Viddi
+		if(!this.store.isMined(this.index)) this.resolve();
+		return this.store.getHash(this.index);
+	}
+	// read from the parent, so a lazily hashed parent is not hashed before it is needed
+	public String getPrevHashnya() {							// Add By Viddi
+		Block parent = this.getParent();
+		return parent == null ? "0" : parent.getHashnya();
+	}
+	public String getTimeStamp() {return TimeStamps.format(this.getTime());}			// Add By Viddi
 	// End of Addition and Modified By Viddi
 
 	public static Block genesisBlock(Node minter) {
@@ -88,42 +91,38 @@ public class Block {
 		return new Block(null, minter, 0, 0); 							// Modification By Viddi
 	}
 
-	// return ancestor block that height is {height}
+	// return ancestor block that height is {height}, or null if there is none; O(log height)
 	public Block getBlockWithHeight(int height) {
-		if (this.height == height) {
-			return this;
-		} else {
-			return this.parent.getBlockWithHeight(height);
-		}
+		return this.store.getBlock(this.store.getAncestor(this.index, height));
 	}
 
 	public boolean isOnSameChainAs(Block block) {
 		if (block == null) {
 			return false;
-		} else if (this.height <= block.height) {
-			return this.equals(block.getBlockWithHeight(this.height));
+		}
+		int height = this.getHeight();
+		int otherHeight = block.getHeight();
+		if (height <= otherHeight) {
+			return this.index == this.store.getAncestor(block.index, height);
 		} else {
-			return this.getBlockWithHeight(block.height).equals(block);
+			return this.store.getAncestor(this.index, otherHeight) == block.index;
 		}
 	}
 
   // Added and Modified By Viddi
 	public String HitungHash(){
-		if ((idHeight>0) && (this.id == idHeight)) {
-//			System.out.println(idHeight);
-			return this.Hashnya;
-		} else {
-				String hitunghash =  StringUtil.applySha256(Integer.toString(this.id) + this.Noncenya + this.TimeStamp);
-//				System.out.println("==>" + idHeight);
-				return hitunghash;
-		}
+		return hashing.hash(Integer.toString(this.id), this.store.getNonce(this.index), this.getTime(), this.store.getDifficulty(this.index));
 	}
 
-	public void CariMine(int difficulty){
-		while(!this.Hashnya.substring(0, difficulty).equals(StringUtil.repeat(difficulty,"0"))){
-			this.Noncenya++;
-			this.Hashnya = this.HitungHash();
-		}
+	public synchronized void CariMine(int difficulty){
+		int nonce = hashing.mine(Integer.toString(this.id), this.store.getNonce(this.index), this.getTime(), difficulty);
+		this.store.setMined(this.index, nonce,
+			hashing.hash(Integer.toString(this.id), nonce, this.getTime(), this.store.getDifficulty(this.index)));
+	}
+
+	// mines a lazily hashed block on first read
+	private synchronized void resolve(){
+		if(!this.store.isMined(this.index)) this.CariMine(this.store.getDifficulty(this.index));
 	}
 	// End of Addition and Modified By Viddi
 }
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.block;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// A set of blocks of one run stored as their dense store indices, in the style of a roaring
+// bitmap: indices are grouped by their upper 16 bits, and every group holds its lower
+// 16 bits either as a sorted char array (a few blocks, the usual case for a node's
+// orphans) or as a 65536-bit bitmap (many blocks). Iteration is in index order.
+public class BlockSet extends AbstractSet<Block> {
+	// a group switches to a bitmap above this many ids, and back below half of it
+	private static final int ARRAY_MAX = 4096;
+
+	private BlockStore store = null;
+	private int[] keys = new int[1];
+	private char[][] arrays = new char[1][];
+	private long[][] bitmaps = new long[1][];
+	private int[] sizes = new int[1];
+	private int groups = 0;
+	private int size = 0;
+
+	public BlockSet(){}
+
+	public BlockSet(BlockSet set){
+		this.store = set.store;
+		this.keys = Arrays.copyOf(set.keys, Math.max(1, set.groups));
+		this.arrays = new char[this.keys.length][];
+		this.bitmaps = new long[this.keys.length][];
+		this.sizes = Arrays.copyOf(set.sizes, this.keys.length);
+		for(int i = 0; i < set.groups; i++){
+			if(set.bitmaps[i] != null){
+				this.bitmaps[i] = set.bitmaps[i].clone();
+			}else{
+				this.arrays[i] = Arrays.copyOf(set.arrays[i], Math.max(1, set.sizes[i]));
+			}
+		}
+		this.groups = set.groups;
+		this.size = set.size;
+	}
+
+	public int size(){ return this.size; }
+
+	public void clear(){
+		this.groups = 0;
+		this.size = 0;
+	}
+
+	public boolean contains(Object o){
+		if(!(o instanceof Block)) return false;
+		int id = ((Block) o).getIndex();
+		int group = this.findGroup(id >>> 16);
+		if(group < 0) return false;
+		char low = (char) id;
+		if(this.bitmaps[group] != null) return (this.bitmaps[group][low >>> 6] & (1L << low)) != 0;
+		return Arrays.binarySearch(this.arrays[group], 0, this.sizes[group], low) >= 0;
+	}
+
+	public boolean add(Block block){
+		if(this.store == null) this.store = block.getStore();
+		int id = block.getIndex();
+		int group = this.findGroup(id >>> 16);
+		if(group < 0) group = this.insertGroup(-group - 1, id >>> 16);
+		char low = (char) id;
+		if(this.bitmaps[group] != null){
+			long[] bitmap = this.bitmaps[group];
+			if((bitmap[low >>> 6] & (1L << low)) != 0) return false;
+			bitmap[low >>> 6] |= 1L << low;
+		}else{
+			char[] array = this.arrays[group];
+			int index = Arrays.binarySearch(array, 0, this.sizes[group], low);
+			if(index >= 0) return false;
+			index = -index - 1;
+			if(this.sizes[group] == array.length) array = this.arrays[group] = Arrays.copyOf(array, array.length * 2);
+			System.arraycopy(array, index, array, index + 1, this.sizes[group] - index);
+			array[index] = low;
+			if(this.sizes[group] + 1 > ARRAY_MAX) this.toBitmap(group);
+		}
+		this.sizes[group]++;
+		this.size++;
+		return true;
+	}
+
+	public boolean remove(Object o){
+		if(!(o instanceof Block)) return false;
+		int id = ((Block) o).getIndex();
+		int group = this.findGroup(id >>> 16);
+		if(group < 0) return false;
+		char low = (char) id;
+		if(this.bitmaps[group] != null){
+			long[] bitmap = this.bitmaps[group];
+			if((bitmap[low >>> 6] & (1L << low)) == 0) return false;
+			bitmap[low >>> 6] &= ~(1L << low);
+			if(this.sizes[group] - 1 < ARRAY_MAX / 2) this.toArray(group);
+		}else{
+			char[] array = this.arrays[group];
+			int index = Arrays.binarySearch(array, 0, this.sizes[group], low);
+			if(index < 0) return false;
+			System.arraycopy(array, index + 1, array, index, this.sizes[group] - index - 1);
+		}
+		this.size--;
+		if(--this.sizes[group] == 0) this.removeGroup(group);
+		return true;
+	}
+
+	public Iterator<Block> iterator(){
+		return new Iterator<Block>(){
+			private int group = 0;
+			// position in the group's array, or next bit to look at in its bitmap
+			private int index = 0;
+			private int next = this.advance();
+
+			public boolean hasNext(){ return this.next >= 0; }
+
+			public Block next(){
+				if(this.next < 0) throw new NoSuchElementException();
+				Block block = store.getBlock(this.next);
+				this.next = this.advance();
+				return block;
+			}
+
+			// the next id, or -1
+			private int advance(){
+				while(this.group < groups){
+					int high = keys[this.group] << 16;
+					long[] bitmap = bitmaps[this.group];
+					if(bitmap == null){
+						if(this.index < sizes[this.group]) return high | arrays[this.group][this.index++];
+					}else{
+						for(int word = this.index >>> 6; word < bitmap.length; word++){
+							long bits = word == this.index >>> 6 ? bitmap[word] & (-1L << this.index) : bitmap[word];
+							if(bits != 0){
+								int low = word << 6 | Long.numberOfTrailingZeros(bits);
+								this.index = low + 1;
+								return high | low;
+							}
+						}
+					}
+					this.group++;
+					this.index = 0;
+				}
+				return -1;
+			}
+		};
+	}
+
+	private int findGroup(int key){
+		return Arrays.binarySearch(this.keys, 0, this.groups, key);
+	}
+
+	private int insertGroup(int index, int key){
+		if(this.groups == this.keys.length){
+			int capacity = this.keys.length * 2;
+			this.keys = Arrays.copyOf(this.keys, capacity);
+			this.arrays = Arrays.copyOf(this.arrays, capacity);
+			this.bitmaps = Arrays.copyOf(this.bitmaps, capacity);
+			this.sizes = Arrays.copyOf(this.sizes, capacity);
+		}
+		int moved = this.groups - index;
+		System.arraycopy(this.keys, index, this.keys, index + 1, moved);
+		System.arraycopy(this.arrays, index, this.arrays, index + 1, moved);
+		System.arraycopy(this.bitmaps, index, this.bitmaps, index + 1, moved);
+		System.arraycopy(this.sizes, index, this.sizes, index + 1, moved);
+		this.keys[index] = key;
+		this.arrays[index] = new char[4];
+		this.bitmaps[index] = null;
+		this.sizes[index] = 0;
+		this.groups++;
+		return index;
+	}
+
+	private void removeGroup(int index){
+		int moved = this.groups - index - 1;
+		System.arraycopy(this.keys, index + 1, this.keys, index, moved);
+		System.arraycopy(this.arrays, index + 1, this.arrays, index, moved);
+		System.arraycopy(this.bitmaps, index + 1, this.bitmaps, index, moved);
+		System.arraycopy(this.sizes, index + 1, this.sizes, index, moved);
+		this.groups--;
+		this.arrays[this.groups] = null;
+		this.bitmaps[this.groups] = null;
+	}
+
+	// the group holds sizes[group] + 1 ids in its array
+	private void toBitmap(int group){
+		long[] bitmap = new long[1 << 10];
+		char[] array = this.arrays[group];
+		for(int i = 0; i <= this.sizes[group]; i++){
+			bitmap[array[i] >>> 6] |= 1L << array[i];
+		}
+		this.bitmaps[group] = bitmap;
+		this.arrays[group] = null;
+	}
+
+	// the group holds sizes[group] - 1 ids in its bitmap
+	private void toArray(int group){
+		long[] bitmap = this.bitmaps[group];
+		char[] array = new char[ARRAY_MAX];
+		int n = 0;
+		for(int word = 0; word < bitmap.length; word++){
+			for(long bits = bitmap[word]; bits != 0; bits &= bits - 1){
+				array[n++] = (char) (word << 6 | Long.numberOfTrailingZeros(bits));
+			}
+		}
+		this.arrays[group] = array;
+		this.bitmaps[group] = null;
+	}
+}
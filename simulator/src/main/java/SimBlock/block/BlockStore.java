@@ -0,0 +1,192 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.block;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import SimBlock.node.Node;
+
+// The blocks of one simulation run, in columns indexed by the order they were created in: the parent, height,
+// skip pointer, minter, time, nonce and 32-byte hash of every block are primitive array
+// entries instead of fields and Strings of each Block, which only keeps its index.
+// Blocks are added under the store's lock. Every column is replaced as a whole when it
+// grows and published through a volatile field, so readers need no lock: an entry is
+// visible to any thread that got hold of the Block it belongs to.
+public final class BlockStore {
+	private static final VarHandle FLAGS = MethodHandles.arrayElementVarHandle(byte[].class);
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final int HASH_BYTES = 32;
+	private static final byte MINED = 1;
+
+	// leading zero hex digits blocks other than the genesis block are mined to
+	private final int difficulty;
+	private int size = 0;
+
+	private volatile Block[] blocks = new Block[16];
+	private volatile int[] parents = new int[16];
+	private volatile int[] heights = new int[16];
+	private volatile int[] skips = new int[16];
+	private volatile int[] minters = new int[16];
+	private volatile long[] times = new long[16];
+	private volatile int[] nonces = new int[16];
+	private volatile byte[] hashes = new byte[16 * HASH_BYTES];
+	// MINED once the nonce and hash are final, written with release semantics
+	private volatile byte[] flags = new byte[16];
+
+	// minters are few, so they are numbered in the order they first mint
+	private volatile Node[] nodes = new Node[16];
+	private final Map<Node,Integer> nodeIndex = new IdentityHashMap<Node,Integer>();
+
+	public BlockStore(int difficulty){
+		this.difficulty = difficulty;
+	}
+
+	public synchronized int size(){ return this.size; }
+
+	// adds a block whose parent has index parentId, -1 for a genesis block, and returns its index
+	synchronized int add(Block block, int parentId, Node minter, long time, int nonce){
+		int id = this.size;
+		if(id == this.blocks.length) this.grow(id * 2);
+		int height = parentId < 0 ? 0 : this.heights[parentId] + 1;
+		this.blocks[id] = block;
+		this.parents[id] = parentId;
+		this.heights[id] = height;
+		this.skips[id] = parentId < 0 ? -1 : this.getAncestor(parentId, getSkipHeight(height));
+		this.minters[id] = this.indexOf(minter);
+		this.times[id] = time;
+		this.nonces[id] = nonce;
+		this.size = id + 1;
+		return id;
+	}
+
+	private void grow(int capacity){
+		// fill the new columns first, then publish them
+		Block[] blocks = Arrays.copyOf(this.blocks, capacity);
+		int[] parents = Arrays.copyOf(this.parents, capacity);
+		int[] heights = Arrays.copyOf(this.heights, capacity);
+		int[] skips = Arrays.copyOf(this.skips, capacity);
+		int[] minters = Arrays.copyOf(this.minters, capacity);
+		long[] times = Arrays.copyOf(this.times, capacity);
+		int[] nonces = Arrays.copyOf(this.nonces, capacity);
+		byte[] hashes = Arrays.copyOf(this.hashes, capacity * HASH_BYTES);
+		byte[] flags = Arrays.copyOf(this.flags, capacity);
+		this.blocks = blocks;
+		this.parents = parents;
+		this.heights = heights;
+		this.skips = skips;
+		this.minters = minters;
+		this.times = times;
+		this.nonces = nonces;
+		this.hashes = hashes;
+		this.flags = flags;
+	}
+
+	private int indexOf(Node minter){
+		if(minter == null) return -1;
+		Integer index = this.nodeIndex.get(minter);
+		if(index == null){
+			index = this.nodeIndex.size();
+			this.nodeIndex.put(minter, index);
+			Node[] nodes = this.nodes;
+			if(index == nodes.length) nodes = Arrays.copyOf(nodes, index * 2);
+			nodes[index] = minter;
+			this.nodes = nodes;
+		}
+		return index;
+	}
+
+	public Block getBlock(int id){ return id < 0 ? null : this.blocks[id]; }
+	int getParentId(int id){ return this.parents[id]; }
+	int getHeight(int id){ return this.heights[id]; }
+	long getTime(int id){ return this.times[id]; }
+	int getNonce(int id){ return this.nonces[id]; }
+
+	Node getMinter(int id){
+		int index = this.minters[id];
+		return index < 0 ? null : this.nodes[index];
+	}
+
+	int getDifficulty(int id){ return id == 0 ? 0 : this.difficulty; }
+
+	boolean isMined(int id){
+		return (byte) FLAGS.getAcquire(this.flags, id) == MINED;
+	}
+
+	// sets the final nonce and hash (64 hex digits) of a block; locked so that a column
+	// being copied by add does not miss the write
+	synchronized void setMined(int id, int nonce, String hash){
+		if(hash.length() != 2 * HASH_BYTES){
+			throw new IllegalArgumentException("Expected " + 2 * HASH_BYTES + " hex digits but got " + hash);
+		}
+		byte[] hashes = this.hashes;
+		for(int i = 0; i < HASH_BYTES; i++){
+			hashes[id * HASH_BYTES + i] = (byte) (Character.digit(hash.charAt(2 * i), 16) << 4 | Character.digit(hash.charAt(2 * i + 1), 16));
+		}
+		this.nonces[id] = nonce;
+		FLAGS.setRelease(this.flags, id, MINED);
+	}
+
+	// the hash as 64 lower case hex digits
+	String getHash(int id){
+		byte[] hashes = this.hashes;
+		char[] hex = new char[2 * HASH_BYTES];
+		for(int i = 0; i < HASH_BYTES; i++){
+			byte b = hashes[id * HASH_BYTES + i];
+			hex[2 * i] = HEX[(b >> 4) & 0xf];
+			hex[2 * i + 1] = HEX[b & 0xf];
+		}
+		return new String(hex);
+	}
+
+	// the id of the ancestor of block id at height, or -1 if there is none.
+	// Follows skip pointers as in Bitcoin Core's CBlockIndex::GetAncestor, O(log height);
+	// a block without one is left through its parent.
+	int getAncestor(int id, int height){
+		int[] parents = this.parents;
+		int[] skips = this.skips;
+		int heightWalk = this.heights[id];
+		if(height < 0 || height > heightWalk) return -1;
+		int walk = id;
+		while(heightWalk > height){
+			int heightSkip = getSkipHeight(heightWalk);
+			int heightSkipPrev = getSkipHeight(heightWalk - 1);
+			if(skips[walk] >= 0 && (heightSkip == height
+					|| (heightSkip > height && !(heightSkipPrev < heightSkip - 2 && heightSkipPrev >= height)))){
+				walk = skips[walk];
+				heightWalk = heightSkip;
+			}else{
+				walk = parents[walk];
+				heightWalk--;
+			}
+		}
+		return walk;
+	}
+
+	// The skip heights of a chain form a skip list: any ancestor is reached in O(log height)
+	// steps, and the heights of consecutive blocks differ so that the walk does not stall.
+	private static int getSkipHeight(int height){
+		if(height < 2) return 0;
+		return (height & 1) != 0 ? invertLowestOne(invertLowestOne(height - 1)) + 1 : invertLowestOne(height);
+	}
+
+	private static int invertLowestOne(int n){
+		return n & (n - 1);
+	}
+}
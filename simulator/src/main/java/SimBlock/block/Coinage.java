@@ -15,25 +15,22 @@
  */
 package SimBlock.block;
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
-
 public class Coinage implements Cloneable {
-	private BigInteger coins;
+	private Amount coins;
 	private long age;
 
-	public Coinage(BigInteger coins, long age) {
+	public Coinage(Amount coins, long age) {
 		this.coins = coins;
 		this.age = age;
 	}
 
-	public BigInteger getCoins() { return this.coins; }
+	public Amount getCoins() { return this.coins; }
 	public long getAge() { return this.age; }
 	public void increaseAge() { this.age++; }
 	public void resetAge() { this.age = 0; }
-	public void reward(double reward) { this.coins = this.coins.add(new BigDecimal(this.getCoinage()).multiply(new BigDecimal(reward)).toBigInteger()); }
+	public void reward(double reward) { this.coins = this.coins.add(this.getCoinage().multiply(reward)); }
 	
-	public BigInteger getCoinage() { return this.getCoins().multiply(BigInteger.valueOf(this.getAge())); }
+	public Amount getCoinage() { return this.getCoins().multiply(this.getAge()); }
 
 	@Override
 	public Coinage clone() {
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.block;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import SimBlock.node.Node;
+
+// The coins and age of every node as of one block. Tables are persistent: a block's
+// table is its parent's with the minter's entry replaced, sharing everything but the
+// path to that entry in a tree of 32-way arrays, so adding a block takes O(log N)
+// time and space. Ages are not stored but derived from the height of the block and
+// of the node's last reset, and the totals needed for the total coinage are updated
+// with every replaced entry.
+final class CoinageTable {
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	static final class Entry {
+		private final Amount coins;
+		// height at which the age was 0
+		private final int resetHeight;
+
+		private Entry(Amount coins, int resetHeight){
+			this.coins = coins;
+			this.resetHeight = resetHeight;
+		}
+
+		Amount getCoins(){ return this.coins; }
+		long getAge(int height){ return (long) height - this.resetHeight; }
+	}
+
+	// node to position in the tree, shared by all tables of a chain
+	private final Map<Node,Integer> index;
+	private final int shift;
+	private final Object[] root;
+	// sums of coins and of coins * resetHeight over all entries
+	private final Amount totalCoins;
+	private final Amount totalResetCoins;
+
+	private CoinageTable(Map<Node,Integer> index, int shift, Object[] root, Amount totalCoins, Amount totalResetCoins){
+		this.index = index;
+		this.shift = shift;
+		this.root = root;
+		this.totalCoins = totalCoins;
+		this.totalResetCoins = totalResetCoins;
+	}
+
+	// the table of the genesis block at height 0, where every node has age 1
+	static CoinageTable create(List<Node> nodes, List<Amount> coins){
+		Map<Node,Integer> index = new IdentityHashMap<Node,Integer>();
+		int shift = 0;
+		while(nodes.size() > WIDTH << shift) shift += BITS;
+		CoinageTable table = new CoinageTable(index, shift, new Object[WIDTH], Amount.ZERO, Amount.ZERO);
+		for(int i = 0; i < nodes.size(); i++){
+			index.put(nodes.get(i), i);
+			set(table.root, shift, i, new Entry(coins.get(i), -1));
+		}
+		Amount totalCoins = Amount.ZERO;
+		for(Amount c : coins){
+			totalCoins = totalCoins.add(c);
+		}
+		return new CoinageTable(index, shift, table.root, totalCoins, Amount.ZERO.subtract(totalCoins));
+	}
+
+	Entry get(Node node){
+		int i = this.index.get(node);
+		Object[] array = this.root;
+		for(int level = this.shift; level > 0; level -= BITS){
+			array = (Object[]) array[(i >>> level) & MASK];
+		}
+		return (Entry) array[i & MASK];
+	}
+
+	// this table with the node's coins replaced and its age reset at height
+	CoinageTable reset(Node node, Amount coins, int height){
+		Entry old = this.get(node);
+		Entry entry = new Entry(coins, height);
+		Object[] root = copyPath(this.root, this.shift, this.index.get(node), entry);
+		return new CoinageTable(this.index, this.shift, root,
+			this.totalCoins.subtract(old.coins).add(coins),
+			this.totalResetCoins.subtract(old.coins.multiply(old.resetHeight))
+				.add(coins.multiply(height)));
+	}
+
+	// sum of coins * age at height
+	Amount getTotalCoinage(int height){
+		return this.totalCoins.multiply(height).subtract(this.totalResetCoins);
+	}
+
+	// fills the tree of a new table in place
+	private static void set(Object[] array, int level, int i, Entry entry){
+		for(; level > 0; level -= BITS){
+			int slot = (i >>> level) & MASK;
+			if(array[slot] == null) array[slot] = new Object[WIDTH];
+			array = (Object[]) array[slot];
+		}
+		array[i & MASK] = entry;
+	}
+
+	private static Object[] copyPath(Object[] array, int level, int i, Entry entry){
+		Object[] copy = array.clone();
+		if(level == 0){
+			copy[i & MASK] = entry;
+		}else{
+			int slot = (i >>> level) & MASK;
+			copy[slot] = copyPath((Object[]) array[slot], level - BITS, i, entry);
+		}
+		return copy;
+	}
+}
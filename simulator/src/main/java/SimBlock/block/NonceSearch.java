@@ -0,0 +1,205 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.block;
+
+import static SimBlock.settings.SimulationConfiguration.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// SHA-256 of prefix + nonce + suffix, the same value as
+// StringUtil.applySha256(prefix + nonce + suffix), computed on raw bytes. The nonce
+// search reuses one digest and its buffers per thread, writes the decimal nonce in
+// place and checks the leading zero hex digits on the digest bytes, so it does not
+// allocate per hash.
+// With MINING_WORKERS > 1 the nonces are split into chunks that the workers of a
+// shared ForkJoinPool take in increasing order.
+public final class NonceSearch {
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final ThreadLocal<NonceSearch> searches = ThreadLocal.withInitial(NonceSearch::new);
+	// nonces a worker takes at a time
+	private static final int CHUNK = 1 << 12;
+	// easier searches take about as long as handing them to the pool
+	private static final int PARALLEL_DIFFICULTY = 4;
+	private static ForkJoinPool pool = null;
+
+	private final MessageDigest digest;
+	// prefix, then the nonce (at most 11 characters), then the suffix
+	private byte[] message = new byte[64];
+	private int suffixOffset = -1;
+	private final byte[] hash = new byte[32];
+
+	private NonceSearch(){
+		try {
+			this.digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	// the first nonce from start on (wrapping like int) whose hash starts with difficulty zero hex digits.
+	// The parallel search returns the same nonce if MINING_DETERMINISTIC, otherwise the first one found.
+	public static int search(String prefix, int start, String suffix, int difficulty){
+		return search(prefix, start, suffix.getBytes(StandardCharsets.UTF_8), difficulty);
+	}
+
+	// the same with the suffix already encoded, e.g. by TimeStamps.encode
+	public static int search(String prefix, int start, byte[] suffix, int difficulty){
+		if(MINING_WORKERS > 1 && difficulty >= PARALLEL_DIFFICULTY){
+			return search(prefix, start, suffix, difficulty, MINING_WORKERS, MINING_DETERMINISTIC);
+		}
+		return searches.get().find(prefix, start, suffix, difficulty);
+	}
+
+	static int search(String prefix, int start, byte[] suffix, int difficulty, int workers, boolean lowest){
+		AtomicLong nextChunk = new AtomicLong();
+		// offset from start of the best nonce found so far
+		AtomicLong found = new AtomicLong(Long.MAX_VALUE);
+		List<Callable<Void>> jobs = new ArrayList<Callable<Void>>();
+		for(int i = 0; i < workers; i++){
+			jobs.add(() -> {
+				searches.get().scan(prefix, start, suffix, difficulty, nextChunk, found, lowest);
+				return null;
+			});
+		}
+		try {
+			for(Future<Void> job : getPool(workers).invokeAll(jobs)){
+				job.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+		return start + (int) found.get();
+	}
+
+	private static synchronized ForkJoinPool getPool(int workers){
+		if(pool == null) pool = new ForkJoinPool(workers);
+		return pool;
+	}
+
+	// the hash as lower case hex
+	public static String hash(String prefix, int nonce, String suffix){
+		return hash(prefix, nonce, suffix.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static String hash(String prefix, int nonce, byte[] suffixBytes){
+		NonceSearch search = searches.get();
+		byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+		search.prepare(prefixBytes, suffixBytes);
+		search.digest(prefixBytes.length, nonce, suffixBytes);
+		return toHex(search.hash);
+	}
+
+	private int find(String prefix, int start, byte[] suffixBytes, int difficulty){
+		byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+		this.prepare(prefixBytes, suffixBytes);
+		int nonce = start;
+		while(true){
+			this.digest(prefixBytes.length, nonce, suffixBytes);
+			if(hasLeadingZeros(this.hash, difficulty)) return nonce;
+			nonce++;
+		}
+	}
+
+	// Chunks are taken in increasing order, so once a hit is known every chunk below it
+	// has been taken; finishing those is enough to know the lowest hit.
+	private void scan(String prefix, int start, byte[] suffixBytes, int difficulty, AtomicLong nextChunk, AtomicLong found, boolean lowest){
+		byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+		this.prepare(prefixBytes, suffixBytes);
+		while(true){
+			long first = nextChunk.getAndIncrement() * CHUNK;
+			for(long offset = first; offset < first + CHUNK; offset++){
+				long best = found.get();
+				if(lowest ? offset >= best : best != Long.MAX_VALUE) return;
+				this.digest(prefixBytes.length, start + (int) offset, suffixBytes);
+				if(hasLeadingZeros(this.hash, difficulty)){
+					found.accumulateAndGet(offset, Math::min);
+					return;
+				}
+			}
+		}
+	}
+
+	private void prepare(byte[] prefixBytes, byte[] suffixBytes){
+		int capacity = prefixBytes.length + 11 + suffixBytes.length;
+		if(this.message.length < capacity) this.message = new byte[capacity];
+		System.arraycopy(prefixBytes, 0, this.message, 0, prefixBytes.length);
+		this.suffixOffset = -1;
+	}
+
+	private void digest(int prefixLength, int nonce, byte[] suffixBytes){
+		int length = writeDecimal(this.message, prefixLength, nonce);
+		// the suffix only moves when the number of digits changes
+		if(length != this.suffixOffset){
+			System.arraycopy(suffixBytes, 0, this.message, length, suffixBytes.length);
+			this.suffixOffset = length;
+		}
+		length += suffixBytes.length;
+		this.digest.update(this.message, 0, length);
+		try {
+			this.digest.digest(this.hash, 0, this.hash.length);
+		} catch (DigestException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	// writes value like Integer.toString at offset, returns the offset after the last digit
+	private static int writeDecimal(byte[] buffer, int offset, int value){
+		if(value < 0){
+			buffer[offset++] = '-';
+		}else{
+			value = -value;
+		}
+		// work on the negative value, so Integer.MIN_VALUE needs no special case
+		int digits = 1;
+		for(int v = value; v <= -10; v /= 10) digits++;
+		int end = offset + digits;
+		for(int i = end - 1; i >= offset; i--){
+			buffer[i] = (byte) ('0' - value % 10);
+			value /= 10;
+		}
+		return end;
+	}
+
+	static boolean hasLeadingZeros(byte[] hash, int difficulty){
+		int bytes = difficulty >> 1;
+		for(int i = 0; i < bytes; i++){
+			if(hash[i] != 0) return false;
+		}
+		return (difficulty & 1) == 0 || (hash[bytes] & 0xf0) == 0;
+	}
+
+	static String toHex(byte[] hash){
+		char[] hex = new char[hash.length * 2];
+		for(int i = 0; i < hash.length; i++){
+			hex[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+			hex[2 * i + 1] = HEX[hash[i] & 0xf];
+		}
+		return new String(hex);
+	}
+}
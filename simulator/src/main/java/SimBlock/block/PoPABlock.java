@@ -28,7 +28,8 @@ public class PoPABlock extends Block {
     private final double totalWork;
     private final double nextTarget;
     private final double reward;
-    private static double genesisNextTarget;
+    private static final double GENESIS_NEXT_TARGET = 0.70; // initial difficulty
+    public static final long TARGET_INTERVAL = 2000; // block interval (ms) the difficulty adjustment aims for
     private static double baseRewardRate = 10.0; // Tokens per full activity point
 
     /**
@@ -57,14 +58,14 @@ public class PoPABlock extends Block {
 
         if (parent == null) {
             this.totalWork = activityScore;
-            this.nextTarget = PoPABlock.genesisNextTarget;
+            this.nextTarget = GENESIS_NEXT_TARGET;
         } else if (parent instanceof PoPABlock p) {
             this.totalWork = p.getTotalWork() + activityScore;
             this.nextTarget = adjustDifficulty(p);
             System.out.println("Next target" + this.nextTarget);
         } else {
             this.totalWork = activityScore;
-            this.nextTarget = PoPABlock.genesisNextTarget;
+            this.nextTarget = GENESIS_NEXT_TARGET;
         }
     }
 
@@ -73,7 +74,7 @@ public class PoPABlock extends Block {
         double newTarget = parent.getNextTarget();
         double delta =
             (this.activityScore - parent.getActivityScore()) *
-            (this.getTime() - parent.getTime() - 2000);
+            (this.getTime() - parent.getTime() - TARGET_INTERVAL);
         if (delta >= 0) {
             newTarget *= 0.95; // Decrease difficulty slightly
         } else if (delta < 0) {
@@ -150,7 +151,6 @@ public class PoPABlock extends Block {
      */
     public static PoPABlock genesisBlock(Node minter) {
         double baselineActivity = 0.75;
-        PoPABlock.genesisNextTarget = 0.70; // initial difficulty
         return new PoPABlock(
             null,
             minter,
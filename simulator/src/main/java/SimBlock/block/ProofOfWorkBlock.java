@@ -15,40 +15,39 @@
  */
 package SimBlock.block;
 
-import java.math.BigInteger;
 import SimBlock.node.Node;
 import static SimBlock.simulator.Simulator.*;
 
 
 public class ProofOfWorkBlock extends Block {
-	private BigInteger difficulty;
-	private BigInteger totalDifficulty;
-	private BigInteger nextDifficulty;
-	private static BigInteger genesisNextDifficulty;
+	private Amount difficulty;
+	private Amount totalDifficulty;
+	private Amount nextDifficulty;
 
 
 
 //	public ProofOfWorkBlock(ProofOfWorkBlock parent, Node minter, long time, BigInteger difficulty) {
 //		super(parent, minter, time);
 // Modification by Viddi
-	public ProofOfWorkBlock(ProofOfWorkBlock parent, Node minter, long time, int Noncenya, BigInteger difficulty) {
+	public ProofOfWorkBlock(ProofOfWorkBlock parent, Node minter, long time, int Noncenya, Amount difficulty) {
 		super(parent, minter, time, Noncenya);    // Modification by Viddi
 		this.difficulty = difficulty;
-		this.totalDifficulty = (parent == null ? BigInteger.ZERO : parent.getTotalDifficulty()).add(difficulty);
-		this.nextDifficulty = (parent == null ? ProofOfWorkBlock.genesisNextDifficulty : parent.getNextDifficulty()); // TODO: difficulty adjustment
+		this.totalDifficulty = (parent == null ? Amount.ZERO : parent.getTotalDifficulty()).add(difficulty);
+		this.nextDifficulty = (parent == null ? null : parent.getNextDifficulty()); // TODO: difficulty adjustment
 	}
 
-	public BigInteger getDifficulty() {return this.difficulty;}
-	public BigInteger getTotalDifficulty() {return this.totalDifficulty;}
-	public BigInteger getNextDifficulty() {return this.nextDifficulty;}
+	public Amount getDifficulty() {return this.difficulty;}
+	public Amount getTotalDifficulty() {return this.totalDifficulty;}
+	public Amount getNextDifficulty() {return this.nextDifficulty;}
 
 	public static ProofOfWorkBlock genesisBlock(Node minter) {
 		long totalMiningPower = 0;
 		for(Node node : getSimulatedNodes()){
 			totalMiningPower += node.getMiningPower();
 		}
-		genesisNextDifficulty = BigInteger.valueOf(totalMiningPower * getTargetInterval());
 // 		return new ProofOfWorkBlock(null, minter, 0, BigInteger.ZERO);
-		return new ProofOfWorkBlock(null, minter, 0, 0, BigInteger.ZERO); // add by Viddi
+		ProofOfWorkBlock genesis = new ProofOfWorkBlock(null, minter, 0, 0, Amount.ZERO); // add by Viddi
+		genesis.nextDifficulty = Amount.valueOf(totalMiningPower).multiply(getTargetInterval());
+		return genesis;
 	}
 }
@@ -15,66 +15,59 @@
  */
 package SimBlock.block;
 
-import java.math.BigInteger;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import SimBlock.node.Node;
 import static SimBlock.settings.SimulationConfiguration.*;
-import static SimBlock.simulator.Main.*;
 import static SimBlock.simulator.Simulator.*;
 
 public class SampleProofOfStakeBlock extends Block {
-	private Map<Node, Coinage> coinages;
-	private static Map<Node, Coinage> genesisCoinages;
-	private BigInteger difficulty;
-	private BigInteger totalDifficulty;
-	private BigInteger nextDifficulty;
+	private final CoinageTable coinages;
+	private Amount difficulty;
+	private Amount totalDifficulty;
+	private Amount nextDifficulty;
 
 //	public SampleProofOfStakeBlock(SampleProofOfStakeBlock parent, Node minter, long time, BigInteger difficulty) {
 //		super(parent, minter, time);
-	public SampleProofOfStakeBlock(SampleProofOfStakeBlock parent, Node minter, long time, int Noncenya, BigInteger difficulty) {
+	public SampleProofOfStakeBlock(SampleProofOfStakeBlock parent, Node minter, long time, int Noncenya, Amount difficulty) {
 		super(parent, minter, time, Noncenya);
 
-		this.coinages = new HashMap<Node, Coinage>();
 		if (parent == null) {
+			List<Amount> coins = new ArrayList<Amount>();
 			for (Node node : getSimulatedNodes()) {
-				this.coinages.put(node, genesisCoinages.get(node).clone());
+				coins.add(genCoinage().getCoins());
 			}
+			this.coinages = CoinageTable.create(getSimulatedNodes(), coins);
 		} else {
-			for (Node node : getSimulatedNodes()) {
-				this.coinages.put(node, parent.getCoinage(node).clone());
-				this.coinages.get(node).increaseAge();
-			}
-			this.coinages.get(minter).reward(STAKING_REWARD);
-			this.coinages.get(minter).resetAge();
+			// only the minter's coins change: it is rewarded for its age, which then starts over
+			Coinage minterCoinage = parent.getCoinage(minter);
+			minterCoinage.increaseAge();
+			minterCoinage.reward(STAKING_REWARD);
+			this.coinages = parent.coinages.reset(minter, minterCoinage.getCoins(), this.getHeight());
 		}
 
-		BigInteger totalCoinage = BigInteger.ZERO;
-		for (Node node : getSimulatedNodes()) {
-			totalCoinage = totalCoinage.add(this.coinages.get(node).getCoinage());
-		}
+		Amount totalCoinage = this.coinages.getTotalCoinage(this.getHeight());
 
 		this.difficulty = difficulty;
-		this.totalDifficulty = (parent == null ? BigInteger.ZERO : parent.getTotalDifficulty()).add(difficulty);
-		this.nextDifficulty = totalCoinage.multiply(BigInteger.valueOf(getTargetInterval())).divide(BigInteger.valueOf(1000));
+		this.totalDifficulty = (parent == null ? Amount.ZERO : parent.getTotalDifficulty()).add(difficulty);
+		this.nextDifficulty = totalCoinage.multiply(getTargetInterval()).divide(1000);
 	}
 
-	public Coinage getCoinage(Node node) {return this.coinages.get(node);}
-	public BigInteger getDifficulty() {return this.difficulty;}
-	public BigInteger getTotalDifficulty() {return this.totalDifficulty;}
-	public BigInteger getNextDifficulty() {return this.nextDifficulty;}
+	public Coinage getCoinage(Node node) {
+		CoinageTable.Entry entry = this.coinages.get(node);
+		return new Coinage(entry.getCoins(), entry.getAge(this.getHeight()));
+	}
+	public Amount getDifficulty() {return this.difficulty;}
+	public Amount getTotalDifficulty() {return this.totalDifficulty;}
+	public Amount getNextDifficulty() {return this.nextDifficulty;}
 
 	private static Coinage genCoinage() {
-		double r = random.nextGaussian();
-		return new Coinage(BigInteger.valueOf(Math.max((int)(r * STDEV_OF_COINS + AVERAGE_COINS),0)),1);
+		double r = getRandom().nextGaussian();
+		return new Coinage(Amount.valueOf(Math.max((int)(r * STDEV_OF_COINS + AVERAGE_COINS),0)),1);
 	}
 
 	public static SampleProofOfStakeBlock genesisBlock(Node minter) {
-		genesisCoinages = new HashMap<Node, Coinage>();
-		for(Node node : getSimulatedNodes()){
-			genesisCoinages.put(node, genCoinage());
-		}
 //		return new SampleProofOfStakeBlock(null, minter, 0, BigInteger.ZERO);
-		return new SampleProofOfStakeBlock(null, minter, 0, 0, BigInteger.ZERO);  // Modification By Viddi
+		return new SampleProofOfStakeBlock(null, minter, 0, 0, Amount.ZERO);  // Modification By Viddi
 	}
 }
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.block;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Block timestamps: the simulated time as "yyyy-MM-dd HH:mm:ss" in UTC, so block
+// hashes do not depend on when the simulation runs. Consecutive blocks are mostly in
+// the same or a nearby second, so each thread keeps the text and UTF-8 bytes of the
+// last second it formatted instead of formatting every block again.
+public final class TimeStamps {
+	private static final ThreadLocal<TimeStamps> lastSecond = ThreadLocal.withInitial(TimeStamps::new);
+
+	private long second = Long.MIN_VALUE;
+	private String text;
+	// never modified once formatted, so it can be handed to other threads
+	private byte[] bytes;
+
+	private TimeStamps(){}
+
+	public static String format(long time){
+		return lastSecond.get().at(time).text;
+	}
+
+	// the bytes of format(time); callers must not modify them
+	public static byte[] encode(long time){
+		return lastSecond.get().at(time).bytes;
+	}
+
+	private TimeStamps at(long time){
+		long second = Math.floorDiv(time, 1000);
+		if(second != this.second){
+			LocalDateTime date = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+			char[] text = new char[19];
+			write(text, 0, date.getYear(), 4);
+			text[4] = '-';
+			write(text, 5, date.getMonthValue(), 2);
+			text[7] = '-';
+			write(text, 8, date.getDayOfMonth(), 2);
+			text[10] = ' ';
+			write(text, 11, date.getHour(), 2);
+			text[13] = ':';
+			write(text, 14, date.getMinute(), 2);
+			text[16] = ':';
+			write(text, 17, date.getSecond(), 2);
+			this.second = second;
+			this.text = new String(text);
+			this.bytes = this.text.getBytes(StandardCharsets.UTF_8);
+		}
+		return this;
+	}
+
+	private static void write(char[] text, int offset, int value, int digits){
+		for(int i = offset + digits - 1; i >= offset; i--){
+			text[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+}
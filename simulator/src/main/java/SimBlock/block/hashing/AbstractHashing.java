@@ -0,0 +1,38 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.block.hashing;
+
+// How a block gets its nonce and hash. The proof of work itself is modelled by the
+// mining task's exponential interval; the hash only shows up in the output, so it can be
+// searched for as on a real chain, made up cheaply, or searched for only once read.
+public abstract class AbstractHashing {
+	// the nonce a block with the given fields ends up with, searching from nonce;
+	// time is the block's simulated time, hashed as its TimeStamps text
+	public abstract int mine(String id, int nonce, long time, int difficulty);
+	// the hash of a block with the given fields, as 64 lower case hex digits
+	public abstract String hash(String id, int nonce, long time, int difficulty);
+
+	// whether mine and hash are deferred until the nonce or hash is read
+	public boolean isLazy(){ return false; }
+
+	public static AbstractHashing create(String hashingName){
+		try {
+			return (AbstractHashing) Class.forName(hashingName).getConstructor().newInstance();
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unknown hashing: " + hashingName, e);
+		}
+	}
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.block.hashing;
+
+import SimBlock.block.NonceSearch;
+import SimBlock.block.TimeStamps;
+
+// SHA-256 of id + nonce + timestamp, with the nonce searched until the hash has
+// difficulty leading zero hex digits
+public class RealHashing extends AbstractHashing {
+	public int mine(String id, int nonce, long time, int difficulty){
+		return NonceSearch.search(id, nonce, TimeStamps.encode(time), difficulty);
+	}
+
+	public String hash(String id, int nonce, long time, int difficulty){
+		return NonceSearch.hash(id, nonce, TimeStamps.encode(time));
+	}
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.block.hashing;
+
+// No search: the nonce is kept and the hash is difficulty zero hex digits followed by
+// a SplitMix64 mix of the block's fields. Deterministic and unique enough to tell
+// blocks apart in the output, but not a SHA-256 hash.
+public class SyntheticHashing extends AbstractHashing {
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	public int mine(String id, int nonce, long time, int difficulty){
+		return nonce;
+	}
+
+	public String hash(String id, int nonce, long time, int difficulty){
+		// the timestamp only has whole seconds
+		long seed = ((long) id.hashCode() << 32) ^ (nonce & 0xffffffffL) ^ (Math.floorDiv(time, 1000) * 0x9e3779b97f4a7c15L);
+		char[] hex = new char[64];
+		for(int i = 0; i < 4; i++){
+			seed += 0x9e3779b97f4a7c15L;
+			long word = mix(seed);
+			for(int j = 0; j < 16; j++){
+				hex[16 * i + j] = HEX[(int) (word >>> (60 - 4 * j)) & 0xf];
+			}
+		}
+		for(int i = 0; i < Math.min(difficulty, 64); i++){
+			hex[i] = '0';
+		}
+		return new String(hex);
+	}
+
+	private static long mix(long z){
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
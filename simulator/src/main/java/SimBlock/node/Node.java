@@ -16,13 +16,16 @@
 package SimBlock.node;
 
 import static SimBlock.settings.SimulationConfiguration.*;
-import static SimBlock.simulator.Main.*;
 import static SimBlock.simulator.Network.*;
 import static SimBlock.simulator.Simulator.*;
 import static SimBlock.simulator.Timer.*;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /* ==== add by Viddi ==== */
@@ -31,12 +34,18 @@ import java.math.BigInteger;
 /* ==== add by Viddi ==== */
 
 import SimBlock.block.Block;
+import SimBlock.block.BlockSet;
 import SimBlock.node.consensusAlgo.AbstractConsensusAlgo;
 import SimBlock.node.routingTable.AbstractRoutingTable;
+import SimBlock.simulator.RandomStreams;
+import SimBlock.simulator.SimulationContext;
 import SimBlock.task.AbstractMessageTask;
 import SimBlock.task.BlockMessageTask;
+import SimBlock.task.CompactBlockMessageTask;
 import SimBlock.task.InvMessageTask;
+import SimBlock.task.InvTrickleTask;
 import SimBlock.task.RecMessageTask;
+import SimBlock.task.SendNextBlockTask;
 import SimBlock.task.AbstractMintingTask;
 
 public class Node {
@@ -46,18 +55,24 @@ public class Node {
 	private AbstractRoutingTable routingTable;
 	private AbstractConsensusAlgo consensusAlgo;
 	protected Block block;
-	private Set<Block> orphans = new HashSet<Block>();
+	private BlockSet orphans = new BlockSet();
 	private AbstractMintingTask mintingTask = null;
+	// blocks this node has minted
+	private int numOfMinted = 0;
+	// tasks this node has scheduled, see LogicalProcess.newScheduledTask
+	private long numOfTasks = 0;
 	private boolean sendingBlock = false;
-	private ArrayList<RecMessageTask> messageQue = new ArrayList<RecMessageTask>();
-	private Set<Block> downloadingBlocks = new HashSet<Block>();
+	private ArrayDeque<RecMessageTask> messageQue = new ArrayDeque<RecMessageTask>();
+	// blocks to announce at the next trickle, with INV_TRICKLE > 0
+	private ArrayList<Block> inventory = new ArrayList<Block>();
+	// peers known to have a block this node is downloading or has yet to announce, which are not sent an inv for it
+	private HashMap<Block,HashSet<Node>> peersWithBlock = new HashMap<Block,HashSet<Node>>();
+	// null with a single upload slot
+	private UploadScheduler uploads = UPLOAD_SLOTS > 1 ? new UploadScheduler(this, UPLOAD_SLOTS) : null;
+	private BlockSet downloadingBlocks = new BlockSet();
 
 	private long processingTime = 2;
 
-	// Added and Modified By Viddi
-	private String hashType;
-	// End of Addition and Modified By Viddi
-
 	public Node(int nodeID,int nConnection ,int region, long miningPower, String routingTableName, String consensusAlgoName){
 		this.nodeID = nodeID;
 		this.region = region;
@@ -85,6 +100,74 @@ public class Node {
 	public boolean addNeighbor(Node node){ return this.routingTable.addNeighbor(node); }
 	public boolean removeNeighbor(Node node){ return this.routingTable.removeNeighbor(node); }
 
+	// state modified by tasks, saved and restored by the optimistic engine
+	public static class Snapshot {
+		private Block block;
+		private BlockSet orphans;
+		private AbstractMintingTask mintingTask;
+		private int numOfMinted;
+		private long numOfTasks;
+		private boolean sendingBlock;
+		private ArrayDeque<RecMessageTask> messageQue;
+		private UploadScheduler uploads;
+		private ArrayList<Block> inventory;
+		private HashMap<Block,HashSet<Node>> peersWithBlock;
+		private BlockSet downloadingBlocks;
+	}
+
+	public Snapshot saveState(){
+		Snapshot snapshot = new Snapshot();
+		snapshot.block = this.block;
+		snapshot.orphans = new BlockSet(this.orphans);
+		snapshot.mintingTask = this.mintingTask;
+		snapshot.numOfMinted = this.numOfMinted;
+		snapshot.numOfTasks = this.numOfTasks;
+		snapshot.sendingBlock = this.sendingBlock;
+		snapshot.messageQue = new ArrayDeque<RecMessageTask>(this.messageQue);
+		snapshot.uploads = this.uploads == null ? null : this.uploads.copy();
+		snapshot.inventory = new ArrayList<Block>(this.inventory);
+		snapshot.peersWithBlock = new HashMap<Block,HashSet<Node>>();
+		for(Map.Entry<Block,HashSet<Node>> entry : this.peersWithBlock.entrySet()){
+			snapshot.peersWithBlock.put(entry.getKey(), new HashSet<Node>(entry.getValue()));
+		}
+		snapshot.downloadingBlocks = new BlockSet(this.downloadingBlocks);
+		return snapshot;
+	}
+
+	public void restoreState(Snapshot snapshot){
+		this.block = snapshot.block;
+		this.orphans = snapshot.orphans;
+		this.mintingTask = snapshot.mintingTask;
+		this.numOfMinted = snapshot.numOfMinted;
+		this.numOfTasks = snapshot.numOfTasks;
+		this.sendingBlock = snapshot.sendingBlock;
+		this.messageQue = snapshot.messageQue;
+		this.uploads = snapshot.uploads;
+		this.inventory = snapshot.inventory;
+		this.peersWithBlock = snapshot.peersWithBlock;
+		this.downloadingBlocks = snapshot.downloadingBlocks;
+	}
+
+	// The id of the next block this node mints, from the node id and the number of blocks it
+	// minted before. It depends only on this node's history, not on the order blocks are
+	// minted in across the network, so every engine gives a block the same id and the random
+	// streams keyed by it draw the same numbers. A block minted by a task that is rolled back
+	// gives its id to the block minted again in its place.
+	public int nextBlockId(){
+		int numOfNodes = SimulationContext.get().getNumOfNodes();
+		if(this.nodeID < 0 || this.nodeID > numOfNodes){
+			throw new IllegalStateException("Node id " + this.nodeID + " is out of [0, " + numOfNodes + "]");
+		}
+		this.numOfMinted++;
+		return Math.toIntExact((long) this.numOfMinted * (numOfNodes + 1) + this.nodeID);
+	}
+
+	// the number of the next task this node schedules, at least min
+	public long nextTaskNumber(long min){
+		this.numOfTasks = Math.max(this.numOfTasks, min);
+		return this.numOfTasks++;
+	}
+
 	public void joinNetwork(){
 		this.routingTable.initTable();
 	}
@@ -100,47 +183,26 @@ public class Node {
 			this.mintingTask = null;
 		}
 		this.block = newBlock;
-		printAddBlock(newBlock);
-		arriveBlock(newBlock, this);
+		onCommit(() -> printAddBlock(newBlock));
 	}
 
 	private void printAddBlock(Block newBlock){
-
-	// Added and Modified By Viddi
-  if (newBlock.getId() == 0){
-		hashType = "Genesis Block";
-	}else{
-		hashType = "Chain Block";
-	}
-	// End of Addition and Modified By Viddi
-
-		OUT_JSON_FILE.print("{");
-		OUT_JSON_FILE.print(	"\"kind\":\"add-block\",");
-		OUT_JSON_FILE.print(	"\"content\":{");
-		OUT_JSON_FILE.print(		"\"block-Type\":" + "\"" + hashType + "\"" + ",");
-		OUT_JSON_FILE.print(		"\"timestamp\":" + getCurrentTime() + ",");
-		OUT_JSON_FILE.print(		"\"node-id\":" + this.getNodeID() + ",");
-		OUT_JSON_FILE.print(		"\"block-id\":" + newBlock.getId() + ",");
-		// Added and Modified By Viddi
-		OUT_JSON_FILE.print(		"\"prev-Hash\":" + "\"" + newBlock.getPrevHashnya() + "\"" + ",");
-		OUT_JSON_FILE.print(		"\"nonce\":" + newBlock.getNoncenya() + ",");
-		OUT_JSON_FILE.print(		"\"hash-Value\":" + "\"" + newBlock.getHashnya() + "\"");
-		// ENd of Addition and Modified By Viddi
-		OUT_JSON_FILE.print(	"}");
-		OUT_JSON_FILE.print("},");
-		OUT_JSON_FILE.flush();
+		getEventSink().addBlock(getCurrentTime(), this.getNodeID(), newBlock.getId(),
+			newBlock.getPrevHashnya(), newBlock.getNoncenya(), newBlock.getHashnya());
 	}
 
+	// marks the blocks of orphanBlock's branch down to the common ancestor with validBlock as orphans
 	public void addOrphans(Block orphanBlock, Block validBlock){
-		if(orphanBlock != validBlock){
+		while(orphanBlock != validBlock){
 			this.orphans.add(orphanBlock);
 			this.orphans.remove(validBlock);
 			if(validBlock == null || orphanBlock.getHeight() > validBlock.getHeight()){
-				this.addOrphans(orphanBlock.getParent(),validBlock);
+				orphanBlock = orphanBlock.getParent();
 			}else if(orphanBlock.getHeight() == validBlock.getHeight()){
-				this.addOrphans(orphanBlock.getParent(),validBlock.getParent());
+				orphanBlock = orphanBlock.getParent();
+				validBlock = validBlock.getParent();
 			}else{
-				this.addOrphans(orphanBlock,validBlock.getParent());
+				validBlock = validBlock.getParent();
 			}
 		}
 	}
@@ -152,23 +214,69 @@ public class Node {
 	}
 
 	public void sendInv(Block block){
-		for(Node to : this.routingTable.getNeighbors()){
-			AbstractMessageTask task = new InvMessageTask(this,to,block);
+		if(INV_TRICKLE > 0){
+			if(this.inventory.isEmpty()){
+				// exponential wait, like the poisson timer of Bitcoin Core
+				double u = RandomStreams.nextDouble(RandomStreams.TRICKLE, this.getNodeID(), -1, block.getId());
+				putTask(new InvTrickleTask(this, Math.max(1, Math.round(-INV_TRICKLE * Math.log(1 - u)))));
+			}
+			this.inventory.add(block);
+			return;
+		}
+		for(int i = 0; i < this.routingTable.getNumOfNeighbors(); i++){
+			AbstractMessageTask task = new InvMessageTask(this,this.routingTable.getNeighbor(i),block);
 			putTask(task);
 		}
 	}
 
+	// announce the blocks gathered since the last trickle, in one message per neighbor,
+	// leaving out the blocks the neighbor is known to have
+	public void trickleInv(){
+		List<Block> blocks = this.inventory;
+		this.inventory = new ArrayList<Block>();
+		for(int i = 0; i < this.routingTable.getNumOfNeighbors(); i++){
+			Node to = this.routingTable.getNeighbor(i);
+			List<Block> unknown = blocks;
+			for(int j = 0; j < blocks.size(); j++){
+				HashSet<Node> peers = this.peersWithBlock.get(blocks.get(j));
+				if(peers != null && peers.contains(to)){
+					if(unknown == blocks) unknown = new ArrayList<Block>(blocks.subList(0, j));
+				}else if(unknown != blocks){
+					unknown.add(blocks.get(j));
+				}
+			}
+			if(!unknown.isEmpty()){
+				putTask(new InvMessageTask(this,to,unknown));
+			}
+		}
+		for(Block block : blocks){
+			this.peersWithBlock.remove(block);
+		}
+	}
+
+	private void addPeerWithBlock(Block block, Node peer){
+		HashSet<Node> peers = this.peersWithBlock.get(block);
+		if(peers == null){
+			peers = new HashSet<Node>();
+			this.peersWithBlock.put(block, peers);
+		}
+		peers.add(peer);
+	}
+
 	public void receiveBlock(Block block){
 		if(this.consensusAlgo.isReceivedBlockValid(block, this.block)){
+			// a block marked as an orphan has already arrived here, when it was marked
+			boolean arrived = this.orphans.contains(block);
 			if (this.block != null && !this.block.isOnSameChainAs(block)) {
 				this.addOrphans(this.block, block);
 			}
 			this.addToChain(block);
+			if(!arrived) onCommit(() -> arriveBlock(block, this));
 			this.minting();
 			this.sendInv(block);
 		}else if(!this.orphans.contains(block) && !block.isOnSameChainAs(this.block)){
 			this.addOrphans(block, this.block);
-			arriveBlock(block, this);
+			onCommit(() -> arriveBlock(block, this));
 		}
 	}
 
@@ -176,17 +284,21 @@ public class Node {
 		Node from = message.getFrom();
 
 		if(message instanceof InvMessageTask){
-			Block block = ((InvMessageTask) message).getBlock();
-			if(!this.orphans.contains(block) && !this.downloadingBlocks.contains(block)){
-				if(this.consensusAlgo.isReceivedBlockValid(block, this.block)){
-					AbstractMessageTask task = new RecMessageTask(this,from,block);
-					putTask(task);
-					downloadingBlocks.add(block);
-				}else if(!block.isOnSameChainAs(this.block)){
-					// get new orphan block
-					AbstractMessageTask task = new RecMessageTask(this,from,block);
-					putTask(task);
-					downloadingBlocks.add(block);
+			for(Block block : ((InvMessageTask) message).getBlocks()){
+				if(!this.orphans.contains(block) && !this.downloadingBlocks.contains(block)){
+					if(this.consensusAlgo.isReceivedBlockValid(block, this.block)){
+						AbstractMessageTask task = new RecMessageTask(this,from,block,RELAY.equals("compact"));
+						putTask(task);
+						downloadingBlocks.add(block);
+					}else if(!block.isOnSameChainAs(this.block)){
+						// get new orphan block
+						AbstractMessageTask task = new RecMessageTask(this,from,block,RELAY.equals("compact"));
+						putTask(task);
+						downloadingBlocks.add(block);
+					}
+				}
+				if(INV_TRICKLE > 0 && (this.downloadingBlocks.contains(block) || this.inventory.contains(block))){
+					this.addPeerWithBlock(block, from);
 				}
 			}
 		}
@@ -200,27 +312,58 @@ public class Node {
 
 		if(message instanceof BlockMessageTask){
 			Block block = ((BlockMessageTask) message).getBlock();
-			downloadingBlocks.remove(block);
-			this.receiveBlock(block);
+			if(message instanceof CompactBlockMessageTask && MEMPOOL_OVERLAP < 1
+					&& RandomStreams.nextDouble(RandomStreams.MEMPOOL, this.getNodeID(), from.getNodeID(), block.getId()) >= MEMPOOL_OVERLAP){
+				// transactions are missing from the mempool, fall back to the full block
+				putTask(new RecMessageTask(this,from,block,false));
+			}else{
+				downloadingBlocks.remove(block);
+				if(INV_TRICKLE > 0) this.addPeerWithBlock(block, from);
+				this.receiveBlock(block);
+				if(INV_TRICKLE > 0 && !this.inventory.contains(block)) this.peersWithBlock.remove(block);
+			}
 		}
 	}
 
 	// send a block to the sender of the next queued recMessage
 	public void sendNextBlockMessage(){
-		if(this.messageQue.size() > 0){
+		if(this.uploads != null){
+			this.uploads.update(this.messageQue);
+			sendingBlock = this.uploads.isFull();
+			return;
+		}
+		if(!this.messageQue.isEmpty()){
 			sendingBlock = true;
 
-			Node to = this.messageQue.get(0).getFrom();
-			Block block = this.messageQue.get(0).getBlock();
-			this.messageQue.remove(0);
-			long blockSize = BLOCKSIZE;
-			long bandwidth = getBandwidth(this.getRegion(),to.getRegion());
-			long delay = blockSize * 8 / (bandwidth/1000) + processingTime;
-			BlockMessageTask messageTask = new BlockMessageTask(this, to, block, delay);
-
-			putTask(messageTask);
+			RecMessageTask request = this.messageQue.poll();
+			long bandwidth = getBandwidth(this.getRegion(),request.getFrom().getRegion());
+			BlockMessageTask messageTask = this.sendBlockMessage(request, getUploadSize(request) * 8 / (bandwidth/1000));
+			putTask(new SendNextBlockTask(this, messageTask.getInterval()));
 		}else{
 			sendingBlock = false;
 		}
 	}
+
+	// the block asked for by request, sent after transferring it takes the given milliseconds
+	BlockMessageTask sendBlockMessage(RecMessageTask request, long transferTime){
+		Node to = request.getFrom();
+		Block block = request.getBlock();
+		long delay = transferTime + processingTime;
+		BlockMessageTask messageTask = request.isCompact()
+			? new CompactBlockMessageTask(this, to, block, delay)
+			: new BlockMessageTask(this, to, block, delay);
+		putTask(messageTask);
+		return messageTask;
+	}
+
+	// bytes sent for request
+	static long getUploadSize(RecMessageTask request){
+		return request.isCompact() ? getCompactBlockSize() : BLOCKSIZE;
+	}
+
+	// BIP 152: the header and a nonce, a 6 byte short id per transaction and the coinbase in full
+	private static long getCompactBlockSize(){
+		long numOfTransactions = Math.max(1, BLOCKSIZE / TX_SIZE);
+		return 80 + 8 + 6 * (numOfTransactions - 1) + TX_SIZE;
+	}
 }
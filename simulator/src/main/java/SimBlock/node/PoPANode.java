@@ -16,6 +16,7 @@
 
 package SimBlock.node;
 
+import java.io.PrintWriter;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -23,10 +24,12 @@ import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import SimBlock.block.PoPABlock;
-import static SimBlock.simulator.Main_PoS.OUT_JSON_FILE;
+import SimBlock.simulator.MainPoPA;
+import SimBlock.simulator.RandomStreams;
+import SimBlock.simulator.SimulationContext;
 import static SimBlock.simulator.Timer.getCurrentTime;
 
 /**
@@ -43,6 +46,7 @@ public class PoPANode extends Node {
     private List<String> reputationHistory = new ArrayList<>();
     private Map<String, Double> activitySources = new HashMap<>();
     private int blocksMined = 0;
+    private SplittableRandom random;
 
     public void incrementBlocksMined() {
         this.blocksMined++;
@@ -68,12 +72,13 @@ public class PoPANode extends Node {
             routingTableName,
             consensusAlgoName
         );
+        this.random = RandomStreams.stream(RandomStreams.DEVICE, nodeID);
         assignDeviceID(nodeID);
         assignActivityScore();
     }
 
     public void assignDeviceID(int nodeId) {
-        this.deviceID = "device-" + nodeId + "-" + new Random().nextInt(10000);
+        this.deviceID = "device-" + nodeId + "-" + this.random.nextInt(10000);
 
     }
 
@@ -87,6 +92,7 @@ public class PoPANode extends Node {
 
     public void printAddBlock(PoPABlock newBlock) {
         hashType = (newBlock.getId() == 0) ? "Genesis Block" : "Chain Block";
+        PrintWriter OUT_JSON_FILE = SimulationContext.get().getOutput(MainPoPA.OUT_JSON_NAME);
 
         OUT_JSON_FILE.print("{");
         OUT_JSON_FILE.print("\"kind\":\"add-block\",");
@@ -106,7 +112,6 @@ public class PoPANode extends Node {
         OUT_JSON_FILE.print("\"hash-Value\":\"" + newBlock.getHashnya() + "\"");
         OUT_JSON_FILE.print("}");
         OUT_JSON_FILE.print("},");
-        OUT_JSON_FILE.flush();
     }
 
     public void assignActivityScore() {
@@ -121,7 +126,7 @@ public class PoPANode extends Node {
     }
 
     private double getRandom(double min, double max) {
-        return min + (max - min) * new Random().nextDouble();
+        return min + (max - min) * this.random.nextDouble();
     }
 
     private double normalize(double val, double min, double max) {
@@ -140,7 +145,7 @@ public class PoPANode extends Node {
                 ":" +
                 this.activityScore +
                 ":" +
-                System.currentTimeMillis();
+                getCurrentTime();
             byte[] hash = digest.digest(data.getBytes());
             return Base64.getEncoder().encodeToString(hash);
         } catch (NoSuchAlgorithmException e) {
@@ -171,7 +176,7 @@ public class PoPANode extends Node {
             this.reputationScore = Math.max(0.1, this.reputationScore - 0.01);
             reputationHistory.add("FAILURE | " + getCurrentTime() + " | From: " + oldScore + " → " + this.reputationScore);
         }
-        String log = String.format("Time=%d, Prev=%.2f, New=%.2f", System.currentTimeMillis(), prev, this.reputationScore);
+        String log = String.format("Time=%d, Prev=%.2f, New=%.2f", getCurrentTime(), prev, this.reputationScore);
         reputationHistory.add(log);
     }
 
@@ -183,7 +188,7 @@ public class PoPANode extends Node {
     //NEW ADDITIONS
     public void accumulateReward(double reward) {
         this.totalReward += reward;
-        String log = String.format("Time=%d, Reward=%.2f, Total=%.2f", System.currentTimeMillis(), reward, totalReward);
+        String log = String.format("Time=%d, Reward=%.2f, Total=%.2f", getCurrentTime(), reward, totalReward);
         rewardHistory.add(log); 
     }
 
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.node;
+
+import static SimBlock.simulator.Network.*;
+import static SimBlock.simulator.Timer.*;
+
+import java.util.ArrayDeque;
+
+import SimBlock.task.RecMessageTask;
+import SimBlock.task.SendNextBlockTask;
+
+// The blocks a node uploads at the same time, at most one per slot. The active uploads
+// share the node's upload bandwidth max-min fairly, each one limited by the download
+// bandwidth of its receiver. A single SendNextBlockTask waits for the upload that ends
+// first; it is moved whenever an upload starts or ends and the rates change.
+// The receiver's download bandwidth only caps each upload and is not shared between
+// senders, so the state of an upload stays with its sender and the partitioned engines
+// can run the senders apart.
+final class UploadScheduler {
+	// bits left once rounding has been accounted for
+	private static final double EPSILON = 1e-6;
+
+	private final Node node;
+	private final RecMessageTask[] requests;
+	// bits left to send and current rate in bits per millisecond
+	private final double[] remaining;
+	private final double[] rates;
+	private int numOfActive = 0;
+	private long lastUpdate = 0;
+	private SendNextBlockTask pending = null;
+	private long pendingTime = 0;
+
+	UploadScheduler(Node node, int slots){
+		this.node = node;
+		this.requests = new RecMessageTask[slots];
+		this.remaining = new double[slots];
+		this.rates = new double[slots];
+	}
+
+	private UploadScheduler(UploadScheduler other){
+		this.node = other.node;
+		this.requests = other.requests.clone();
+		this.remaining = other.remaining.clone();
+		this.rates = other.rates.clone();
+		this.numOfActive = other.numOfActive;
+		this.lastUpdate = other.lastUpdate;
+		this.pending = other.pending;
+		this.pendingTime = other.pendingTime;
+	}
+
+	// for the snapshots of the optimistic engine
+	UploadScheduler copy(){
+		return new UploadScheduler(this);
+	}
+
+	// no slot left for another upload
+	boolean isFull(){
+		return this.numOfActive == this.requests.length;
+	}
+
+	// ends the uploads that are done, starts queued ones in the free slots and moves
+	// the completion task if the rates changed
+	void update(ArrayDeque<RecMessageTask> queue){
+		long now = getCurrentTime();
+		boolean changed = false;
+		if(this.pending != null && this.pendingTime <= now){
+			this.pending = null;
+			changed = true;
+		}
+
+		double elapsed = now - this.lastUpdate;
+		this.lastUpdate = now;
+		for(int i = 0; i < this.numOfActive; i++){
+			this.remaining[i] -= this.rates[i] * elapsed;
+		}
+
+		for(int i = 0; i < this.numOfActive; ){
+			if(this.remaining[i] <= EPSILON){
+				RecMessageTask request = this.requests[i];
+				this.removeAt(i);
+				this.node.sendBlockMessage(request, 0);
+				changed = true;
+			}else{
+				i++;
+			}
+		}
+
+		while(this.numOfActive < this.requests.length && !queue.isEmpty()){
+			RecMessageTask request = queue.poll();
+			this.requests[this.numOfActive] = request;
+			this.remaining[this.numOfActive] = Node.getUploadSize(request) * 8.0;
+			this.numOfActive++;
+			changed = true;
+		}
+
+		if(changed){
+			this.share();
+			this.reschedule(now);
+		}
+	}
+
+	private void removeAt(int i){
+		int last = --this.numOfActive;
+		this.requests[i] = this.requests[last];
+		this.remaining[i] = this.remaining[last];
+		this.rates[i] = this.rates[last];
+		this.requests[last] = null;
+	}
+
+	// max-min fair rates: uploads whose receiver cannot take an equal share get what it can
+	// take, the rest split what is left equally
+	private void share(){
+		double capacity = getUploadBandwidth(this.node.getRegion()) / 1000.0;
+		int unassigned = this.numOfActive;
+		boolean[] assigned = new boolean[this.numOfActive];
+		boolean capped = true;
+		while(capped && unassigned > 0){
+			capped = false;
+			double fairShare = capacity / unassigned;
+			for(int i = 0; i < this.numOfActive; i++){
+				if(assigned[i]) continue;
+				double cap = getDownloadBandwidth(this.requests[i].getFrom().getRegion()) / 1000.0;
+				if(cap <= fairShare){
+					this.rates[i] = cap;
+					assigned[i] = true;
+					capacity -= cap;
+					unassigned--;
+					capped = true;
+				}
+			}
+		}
+		for(int i = 0; i < this.numOfActive; i++){
+			if(!assigned[i]) this.rates[i] = capacity / unassigned;
+		}
+	}
+
+	private void reschedule(long now){
+		if(this.pending != null){
+			removeTask(this.pending);
+			this.pending = null;
+		}
+		if(this.numOfActive == 0) return;
+		double first = Double.MAX_VALUE;
+		for(int i = 0; i < this.numOfActive; i++){
+			first = Math.min(first, this.remaining[i] / this.rates[i]);
+		}
+		long interval = Math.max(1, (long) Math.ceil(first));
+		this.pending = new SendNextBlockTask(this.node, interval);
+		this.pendingTime = now + interval;
+		putTask(this.pending);
+	}
+}
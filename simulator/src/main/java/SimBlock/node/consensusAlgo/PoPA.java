@@ -15,7 +15,7 @@
  */
 package SimBlock.node.consensusAlgo;
 
-import static SimBlock.simulator.Main.*;
+import static SimBlock.simulator.RandomStreams.*;
 
 import SimBlock.block.Block;
 import SimBlock.block.PoPABlock;
@@ -36,7 +36,8 @@ public class PoPA extends AbstractConsensusAlgo {
         PoPABlock parent = (PoPABlock) selfNode.getBlock();
         double difficulty = parent.getNextTarget();
         double p = parent.getReward() / difficulty;
-        double u = random.nextDouble();
+        // one draw per node and parent, whatever order the nodes get to it
+        double u = nextDouble(MINTING, selfNode.getNodeID(), -1, parent.getId());
         return p <= Math.pow(2, -53)
             ? null
             : new ActivityMiningTask(
@@ -15,13 +15,12 @@
  */
 package SimBlock.node.consensusAlgo;
 
+import SimBlock.block.Amount;
 import SimBlock.block.Block;
 import SimBlock.block.ProofOfWorkBlock;
 import SimBlock.node.Node;
 import SimBlock.task.MiningTask;
-import static SimBlock.simulator.Main.*;
-
-import java.math.BigInteger;
+import static SimBlock.simulator.RandomStreams.*;
 
 public class ProofOfWork extends AbstractConsensusAlgo {
 	public ProofOfWork(Node selfNode) {
@@ -32,9 +31,10 @@ public class ProofOfWork extends AbstractConsensusAlgo {
 	public MiningTask minting() {
 		Node selfNode = this.getSelfNode();
 		ProofOfWorkBlock parent = (ProofOfWorkBlock)selfNode.getBlock();
-		BigInteger difficulty = parent.getNextDifficulty();
+		Amount difficulty = parent.getNextDifficulty();
 		double p = 1.0 / difficulty.doubleValue();
-		double u = random.nextDouble();
+		// one draw per node and parent, whatever order the nodes get to it
+		double u = nextDouble(MINTING, selfNode.getNodeID(), -1, parent.getId());
 		return p <= Math.pow(2, -53) ? null : new MiningTask(selfNode, (long)( Math.log(u) / Math.log(1.0-p) / selfNode.getMiningPower() ), 0, difficulty);
 	}
 
@@ -15,13 +15,12 @@
  */
 package SimBlock.node.consensusAlgo;
 
+import SimBlock.block.Amount;
 import SimBlock.block.Block;
 import SimBlock.block.SampleProofOfStakeBlock;
 import SimBlock.node.Node;
 import SimBlock.task.SampleStakingTask;
-import static SimBlock.simulator.Main.*;
-
-import java.math.BigInteger;
+import static SimBlock.simulator.RandomStreams.*;
 
 public class SampleProofOfStake extends AbstractConsensusAlgo {
 	public SampleProofOfStake(Node selfNode) {
@@ -32,9 +31,10 @@ public class SampleProofOfStake extends AbstractConsensusAlgo {
 	public SampleStakingTask minting() {
 		Node selfNode = this.getSelfNode();
 		SampleProofOfStakeBlock parent = (SampleProofOfStakeBlock)selfNode.getBlock();
-		BigInteger difficulty = parent.getNextDifficulty();
+		Amount difficulty = parent.getNextDifficulty();
 		double p = parent.getCoinage(selfNode).getCoinage().doubleValue() / difficulty.doubleValue();
-		double u = random.nextDouble();
+		// one draw per node and parent, whatever order the nodes get to it
+		double u = nextDouble(MINTING, selfNode.getNodeID(), -1, parent.getId());
 		return p <= Math.pow(2, -53) ? null : new SampleStakingTask(selfNode, (long)( Math.log(u) / Math.log(1.0-p) * 1000 ), 0, difficulty);
 	}
 
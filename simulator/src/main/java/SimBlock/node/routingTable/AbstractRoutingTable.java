@@ -16,12 +16,17 @@
 package SimBlock.node.routingTable;
 
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 
 import SimBlock.node.Node;
+import static SimBlock.settings.SimulationConfiguration.*;
+import static SimBlock.simulator.Simulator.*;
 
 public abstract class AbstractRoutingTable {
 	private Node selfNode;
 	private int nConnection = 8;
+	private SplittableRandom random = null;
+	private PeerSampler peerSampler = null;
 
 	public AbstractRoutingTable(Node selfNode){
 		this.selfNode = selfNode;
@@ -29,11 +34,39 @@ public abstract class AbstractRoutingTable {
 	protected Node getSelfNode() {return selfNode;}
 	public void setnConnection(int nConnection) {this.nConnection = nConnection;}
 	public int getnConnection(){return this.nConnection;}
+
+	// random numbers of this table, split from the simulation's generator by TopologyBuilder or drawn from it on first use
+	protected SplittableRandom getTableRandom(){
+		if(this.random == null){
+			this.random = REPRODUCIBLE ? new SplittableRandom(getRandom().nextLong()) : new SplittableRandom();
+		}
+		return this.random;
+	}
+	void setTableRandom(SplittableRandom random){this.random = random;}
+
+	// candidates for new neighbors among the nodes simulated now
+	protected PeerSampler getPeerSampler(){
+		if(this.peerSampler == null) this.peerSampler = new PeerSampler(getSimulatedNodes().size(), this.getTableRandom());
+		return this.peerSampler;
+	}
+
+	// the part of initTable that only changes this table, which TopologyBuilder runs
+	// for all tables in parallel before it initializes them in order
+	public void prepareTable(){};
 	public abstract void initTable();
-	public abstract ArrayList<Node> getNeighbors();
+	// the neighbors, read only; valid until the table changes
+	protected abstract NeighborList getNeighborList();
 	public abstract boolean addNeighbor(Node node);
 	public abstract boolean removeNeighbor(Node node);
 
+	// a copy of the neighbors
+	public ArrayList<Node> getNeighbors(){return this.getNeighborList().toList();}
+	// the neighbors without copying
+	public int getNumOfNeighbors(){return this.getNeighborList().size();}
+	public Node getNeighbor(int i){return this.getNeighborList().get(i);}
+	// node ids of the neighbors in the first getNumOfNeighbors() entries
+	public int[] getNeighborIds(){return this.getNeighborList().getIds();}
+
 	public boolean addInbound(Node from){return false;};
 	public boolean removeInbound(Node from){return false;};
 	public void acceptBlock(){};
@@ -14,61 +14,64 @@
  * limitations under the License.
  */
 package SimBlock.node.routingTable;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 import SimBlock.node.Node;
 import static SimBlock.simulator.Simulator.*;
 import static SimBlock.simulator.Timer.*;
-import static SimBlock.simulator.Main.*;
 
 public class BitcoinCoreTable extends AbstractRoutingTable {
-	private ArrayList<Node> outbound = new ArrayList<Node>();
-	private ArrayList<Node> inbound = new ArrayList<Node>();
+	// outbound first, then inbound
+	private NeighborList neighbors = new NeighborList();
+	private int numOfOutbound = 0;
+	// the same nodes, for the duplicate check
+	private Set<Node> neighborSet = new HashSet<Node>();
 
 	public BitcoinCoreTable(Node selfNode) {
 		super(selfNode);
 	}
 
-	public ArrayList<Node> getNeighbors(){
-		ArrayList<Node> neighbors = new ArrayList<Node>();
-		neighbors.addAll(outbound);
-		neighbors.addAll(inbound);
-		return neighbors;
+	protected NeighborList getNeighborList(){
+		return this.neighbors;
+	}
+
+	public void prepareTable(){
+		this.getPeerSampler().prefetch(this.getnConnection());
 	}
 
 	// set nConnection random nodes to table
 	public void initTable(){
-	    ArrayList<Integer> candidates = new ArrayList<Integer>();
-	    for(int i = 0 ; i < getSimulatedNodes().size() ; i++) {
-	    	candidates.add(i);
-	    }
-		Collections.shuffle(candidates);
-		for(int candidate:candidates){
-			if(this.outbound.size() < this.getnConnection()){
-				this.addNeighbor(getSimulatedNodes().get(candidate));
-			}else{
-				break;
-			}
-	    };
+		PeerSampler candidates = this.getPeerSampler();
+		int candidate;
+		while(this.numOfOutbound < this.getnConnection() && (candidate = candidates.next()) >= 0){
+			this.addNeighbor(getSimulatedNodes().get(candidate));
+		}
 	}
 
 	// add node to outbound and add selfnode to node's inbound
 	// if # of nodes in outbound is less than nConnection
 	public boolean addNeighbor(Node node){
-		if(node == getSelfNode() || this.outbound.contains(node) || this.inbound.contains(node) || this.outbound.size() >= this.getnConnection()){
+		if(node == getSelfNode() || this.neighborSet.contains(node) || this.numOfOutbound >= this.getnConnection()){
 			return false;
-		}else if(this.outbound.add(node) && node.getRoutingTable().addInbound(getSelfNode())){
+		}
+		this.neighbors.add(this.numOfOutbound++, node);
+		this.neighborSet.add(node);
+		if(node.getRoutingTable().addInbound(getSelfNode())){
 			printAddLink(node);
 			return true;
-		}else{
-			return false;
 		}
+		return false;
 	}
 
 	// remove node to outbount and remove selfnode to node's inbount
 	public boolean removeNeighbor(Node node){
-		if(this.outbound.remove(node) && node.getRoutingTable().removeInbound(getSelfNode())){
+		int index = this.neighbors.indexOf(node);
+		if(index < 0 || index >= this.numOfOutbound) return false;
+		this.neighbors.remove(index);
+		this.numOfOutbound--;
+		this.neighborSet.remove(node);
+		if(node.getRoutingTable().removeInbound(getSelfNode())){
 			printRemoveLink(node);
 			return true;
 		}
@@ -76,43 +79,26 @@ public class BitcoinCoreTable extends AbstractRoutingTable {
 	}
 
 	public boolean addInbound(Node from){
-		if(this.inbound.add(from)){
-			printAddLink(from);
-			return true;
-		}
-		return false;
+		this.neighbors.add(from);
+		this.neighborSet.add(from);
+		printAddLink(from);
+		return true;
 	}
 	public boolean removeInbound(Node from){
-		if(this.inbound.remove(from)){
-			printRemoveLink(from);
-			return true;
-		}
-		return false;
+		int index = this.neighbors.indexOf(from);
+		if(index < this.numOfOutbound) return false;
+		this.neighbors.remove(index);
+		this.neighborSet.remove(from);
+		printRemoveLink(from);
+		return true;
 	}
 
 	private void printAddLink(Node endNode){
-		OUT_JSON_FILE.print("{");
-		OUT_JSON_FILE.print(	"\"kind\":\"add-link\",");
-		OUT_JSON_FILE.print(	"\"content\":{");
-		OUT_JSON_FILE.print(		"\"timestamp-start\":" + getCurrentTime() + ",");
-		OUT_JSON_FILE.print(		"\"begin-node-id\":" + getSelfNode().getNodeID() + ",");
-		OUT_JSON_FILE.print(		"\"end-node-id\":" + endNode.getNodeID() + ",");
-		OUT_JSON_FILE.print(		"\"timestamp-stop\":" + getCurrentTime());
-		OUT_JSON_FILE.print(	"}");
-		OUT_JSON_FILE.print("},");
-		OUT_JSON_FILE.flush();
+		getEventSink().addLink(getCurrentTime(), getSelfNode().getNodeID(), endNode.getNodeID());
 	}
 
 	private void printRemoveLink(Node endNode){
-		OUT_JSON_FILE.print("{");
-		OUT_JSON_FILE.print(	"\"kind\":\"remove-link\",");
-		OUT_JSON_FILE.print(	"\"content\":{");
-		OUT_JSON_FILE.print(		"\"timestamp\":" + getCurrentTime() + ",");
-		OUT_JSON_FILE.print(		"\"begin-node-id\":" + getSelfNode().getNodeID() + ",");
-		OUT_JSON_FILE.print(		"\"end-node-id\":" + endNode.getNodeID());
-		OUT_JSON_FILE.print(	"}");
-		OUT_JSON_FILE.print("},");
-		OUT_JSON_FILE.flush();
+		getEventSink().removeLink(getCurrentTime(), getSelfNode().getNodeID(), endNode.getNodeID());
 	}
 
 }
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.node.routingTable;
+
+import java.util.List;
+
+import SimBlock.node.Node;
+import static SimBlock.settings.SimulationConfiguration.*;
+import static SimBlock.simulator.Simulator.*;
+import static SimBlock.simulator.Timer.*;
+
+// Peers of an Ethereum devp2p node. Discovery fills a table of 17 buckets of 16 nodes
+// by log distance, the nearest bucket holding all closer nodes; the node then dials
+// random nodes of that table until a third of DEVP2P_MAX_PEERS are connected and
+// accepts inbound peers up to the rest. Links are two way, as in BitcoinCoreTable.
+// The degree of DEGREE_DISTRIBUTION is not used.
+public class Devp2pTable extends AbstractRoutingTable {
+	private static final int NUM_OF_BUCKETS = 17;
+	private static final int BUCKET_SIZE = 16;
+	private static final int DIAL_RATIO = 3;
+
+	// outbound first, then inbound
+	private final NeighborList peers = new NeighborList();
+	private int numOfOutbound = 0;
+	private List<Node> discovered = null;
+
+	public Devp2pTable(Node selfNode) {
+		super(selfNode);
+	}
+
+	protected NeighborList getNeighborList(){
+		return this.peers;
+	}
+
+	private int getMaxOutbound(){ return DEVP2P_MAX_PEERS / DIAL_RATIO; }
+	private int getMaxInbound(){ return DEVP2P_MAX_PEERS - this.getMaxOutbound(); }
+
+	public void prepareTable(){
+		XorBuckets table = new XorBuckets(getKeyIndex().getKey(getSelfNode()), NUM_OF_BUCKETS, BUCKET_SIZE);
+		this.discovered = table.sample(getKeyIndex(), this.getTableRandom());
+	}
+
+	public void initTable(){
+		if(this.discovered == null) this.prepareTable();
+		PeerSampler dials = new PeerSampler(this.discovered.size(), this.getTableRandom());
+		int dial;
+		while(this.numOfOutbound < this.getMaxOutbound() && (dial = dials.next()) >= 0){
+			this.addNeighbor(this.discovered.get(dial));
+		}
+		this.discovered = null;
+	}
+
+	public boolean addNeighbor(Node node){
+		if(node == getSelfNode() || this.numOfOutbound >= this.getMaxOutbound() || this.peers.indexOf(node) >= 0){
+			return false;
+		}
+		if(!node.getRoutingTable().addInbound(getSelfNode())) return false;
+		this.peers.add(this.numOfOutbound++, node);
+		printAddLink(node);
+		return true;
+	}
+
+	public boolean removeNeighbor(Node node){
+		int index = this.peers.indexOf(node);
+		if(index < 0 || index >= this.numOfOutbound) return false;
+		this.peers.remove(index);
+		this.numOfOutbound--;
+		node.getRoutingTable().removeInbound(getSelfNode());
+		printRemoveLink(node);
+		return true;
+	}
+
+	public boolean addInbound(Node from){
+		if(this.peers.size() - this.numOfOutbound >= this.getMaxInbound() || this.peers.indexOf(from) >= 0) return false;
+		this.peers.add(from);
+		printAddLink(from);
+		return true;
+	}
+
+	public boolean removeInbound(Node from){
+		int index = this.peers.indexOf(from);
+		if(index < this.numOfOutbound) return false;
+		this.peers.remove(index);
+		printRemoveLink(from);
+		return true;
+	}
+
+	private void printAddLink(Node endNode){
+		getEventSink().addLink(getCurrentTime(), getSelfNode().getNodeID(), endNode.getNodeID());
+	}
+
+	private void printRemoveLink(Node endNode){
+		getEventSink().removeLink(getCurrentTime(), getSelfNode().getNodeID(), endNode.getNodeID());
+	}
+}
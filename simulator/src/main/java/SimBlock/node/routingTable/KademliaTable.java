@@ -0,0 +1,86 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.node.routingTable;
+
+import java.util.List;
+
+import SimBlock.node.Node;
+import static SimBlock.settings.SimulationConfiguration.*;
+import static SimBlock.simulator.Simulator.*;
+import static SimBlock.simulator.Timer.*;
+
+// Kademlia routing table: the neighbors are kept in 64 buckets by the XOR distance of
+// their keys, at most KADEMLIA_BUCKET_SIZE per bucket. A node fills every bucket with
+// random nodes at that distance, and a node it adds learns it in turn if its own bucket
+// has room. Links are one way, blocks are sent to every node in the table.
+// The degree of DEGREE_DISTRIBUTION is not used.
+public class KademliaTable extends AbstractRoutingTable {
+	private final NeighborList neighbors = new NeighborList();
+	private XorBuckets buckets = null;
+	private List<Node> candidates = null;
+
+	public KademliaTable(Node selfNode) {
+		super(selfNode);
+	}
+
+	protected NeighborList getNeighborList(){
+		return this.neighbors;
+	}
+
+	private XorBuckets getBuckets(){
+		if(this.buckets == null){
+			this.buckets = new XorBuckets(getKeyIndex().getKey(getSelfNode()), Long.SIZE, KADEMLIA_BUCKET_SIZE);
+		}
+		return this.buckets;
+	}
+
+	public void prepareTable(){
+		this.candidates = this.getBuckets().sample(getKeyIndex(), this.getTableRandom());
+	}
+
+	public void initTable(){
+		if(this.candidates == null) this.prepareTable();
+		for(Node candidate : this.candidates){
+			this.addNeighbor(candidate);
+		}
+		this.candidates = null;
+	}
+
+	public boolean addNeighbor(Node node){
+		if(!this.add(node)) return false;
+		node.getRoutingTable().addInbound(getSelfNode());
+		return true;
+	}
+
+	public boolean removeNeighbor(Node node){
+		if(node == getSelfNode() || !this.getBuckets().remove(node, getKeyIndex().getKey(node))) return false;
+		this.neighbors.remove(node);
+		getEventSink().removeLink(getCurrentTime(), getSelfNode().getNodeID(), node.getNodeID());
+		return true;
+	}
+
+	// a node that contacts this one goes into its bucket if there is room
+	public boolean addInbound(Node from){
+		return this.add(from);
+	}
+
+	private boolean add(Node node){
+		if(node == getSelfNode() || !this.getBuckets().add(node, getKeyIndex().getKey(node))) return false;
+		this.neighbors.add(node);
+		getEventSink().addLink(getCurrentTime(), getSelfNode().getNodeID(), node.getNodeID());
+		return true;
+	}
+}
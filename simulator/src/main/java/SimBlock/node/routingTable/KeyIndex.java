@@ -0,0 +1,80 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.node.routingTable;
+
+import java.util.Arrays;
+import java.util.List;
+
+import SimBlock.node.Node;
+
+// 64 bit keys of the simulated nodes for the XOR distance routing tables, sorted as
+// unsigned numbers. The nodes whose keys share the bits above some bit with a given key
+// are a contiguous range of the sorted keys, so a bucket of any table can be filled
+// with two binary searches.
+public final class KeyIndex {
+	private final long salt;
+	private final long[] keys;
+	private final Node[] nodes;
+
+	public KeyIndex(List<Node> nodes, long salt){
+		this.salt = salt;
+		int size = nodes.size();
+		long[] keys = new long[size];
+		Integer[] order = new Integer[size];
+		for(int i = 0; i < size; i++){
+			keys[i] = this.getKey(nodes.get(i));
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Long.compareUnsigned(keys[a], keys[b]));
+		this.keys = new long[size];
+		this.nodes = new Node[size];
+		for(int i = 0; i < size; i++){
+			this.keys[i] = keys[order[i]];
+			this.nodes[i] = nodes.get(order[i]);
+		}
+	}
+
+	public int size(){ return this.nodes.length; }
+	Node get(int position){ return this.nodes[position]; }
+
+	// SplitMix64 of the node id, uniform and different for every run unless reproducible
+	public long getKey(Node node){
+		long z = this.salt + node.getNodeID() * 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	// the first position with a key not below key
+	int lowerBound(long key){
+		int low = 0;
+		int high = this.keys.length;
+		while(low < high){
+			int middle = (low + high) >>> 1;
+			if(Long.compareUnsigned(this.keys[middle], key) < 0){
+				low = middle + 1;
+			}else{
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	// the first position with a key above key
+	int upperBound(long key){
+		return key == -1L ? this.keys.length : this.lowerBound(key + 1);
+	}
+}
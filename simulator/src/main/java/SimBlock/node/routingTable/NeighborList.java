@@ -0,0 +1,81 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.node.routingTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import SimBlock.node.Node;
+
+// The neighbors of a routing table in order, with their node ids in a parallel int
+// array so that they can be iterated without copying or unboxing.
+public final class NeighborList {
+	private Node[] nodes = new Node[8];
+	private int[] ids = new int[8];
+	private int size = 0;
+
+	public int size(){ return this.size; }
+	public Node get(int i){ return this.nodes[i]; }
+	// the backing array, the ids of the neighbors are its first size() entries
+	public int[] getIds(){ return this.ids; }
+
+	public int indexOf(Node node){
+		for(int i = 0; i < this.size; i++){
+			if(this.nodes[i] == node) return i;
+		}
+		return -1;
+	}
+
+	public void add(Node node){
+		this.add(this.size, node);
+	}
+
+	public void add(int index, Node node){
+		if(this.size == this.nodes.length){
+			this.nodes = Arrays.copyOf(this.nodes, this.size * 2);
+			this.ids = Arrays.copyOf(this.ids, this.size * 2);
+		}
+		System.arraycopy(this.nodes, index, this.nodes, index + 1, this.size - index);
+		System.arraycopy(this.ids, index, this.ids, index + 1, this.size - index);
+		this.nodes[index] = node;
+		this.ids[index] = node.getNodeID();
+		this.size++;
+	}
+
+	public Node remove(int index){
+		Node node = this.nodes[index];
+		this.size--;
+		System.arraycopy(this.nodes, index + 1, this.nodes, index, this.size - index);
+		System.arraycopy(this.ids, index + 1, this.ids, index, this.size - index);
+		this.nodes[this.size] = null;
+		return node;
+	}
+
+	public boolean remove(Node node){
+		int index = this.indexOf(node);
+		if(index < 0) return false;
+		this.remove(index);
+		return true;
+	}
+
+	public ArrayList<Node> toList(){
+		ArrayList<Node> list = new ArrayList<Node>(this.size);
+		for(int i = 0; i < this.size; i++){
+			list.add(this.nodes[i]);
+		}
+		return list;
+	}
+}
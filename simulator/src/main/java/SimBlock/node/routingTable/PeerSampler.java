@@ -0,0 +1,116 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.node.routingTable;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Indices of the simulated nodes in uniformly random order without repetition, distributed
+// like a prefix of a shuffled list of all indices. Indices are drawn at random and
+// rejected if drawn before, so n indices take O(n) time and space whatever the number
+// of nodes; once half of them are drawn the rest are shuffled instead.
+public final class PeerSampler {
+	private final int size;
+	private final SplittableRandom random;
+	// drawn indices + 1 in open addressing, 0 is empty
+	private int[] drawn = new int[16];
+	private int numOfDrawn = 0;
+	// the indices not drawn yet, once half of them are drawn
+	private int[] rest = null;
+	private int restSize = 0;
+	// indices drawn by prefetch and not returned yet
+	private int[] buffer = new int[0];
+	private int bufferHead = 0;
+	private int bufferTail = 0;
+
+	public PeerSampler(int size, SplittableRandom random){
+		this.size = size;
+		this.random = random;
+	}
+
+	// the next index, or -1 if every index has been returned
+	public int next(){
+		if(this.bufferHead < this.bufferTail) return this.buffer[this.bufferHead++];
+		return this.draw();
+	}
+
+	// draws the next count indices ahead of time, e.g. on another thread
+	void prefetch(int count){
+		if(this.bufferTail + count > this.buffer.length){
+			this.buffer = Arrays.copyOf(this.buffer, this.bufferTail + count);
+		}
+		for(int i = 0; i < count; i++){
+			int index = this.draw();
+			if(index < 0) break;
+			this.buffer[this.bufferTail++] = index;
+		}
+	}
+
+	private int draw(){
+		if(this.rest == null && (this.numOfDrawn + 1) * 2L > this.size) this.shuffleRest();
+		if(this.rest != null){
+			if(this.restSize == 0) return -1;
+			int i = this.random.nextInt(this.restSize);
+			int index = this.rest[i];
+			this.rest[i] = this.rest[--this.restSize];
+			return index;
+		}
+		while(true){
+			int index = this.random.nextInt(this.size);
+			if(this.insert(index)) return index;
+		}
+	}
+
+	private boolean insert(int index){
+		if(this.numOfDrawn * 2 >= this.drawn.length){
+			int[] old = this.drawn;
+			this.drawn = new int[old.length * 2];
+			for(int value : old){
+				if(value != 0) this.put(value);
+			}
+		}
+		if(!this.put(index + 1)) return false;
+		this.numOfDrawn++;
+		return true;
+	}
+
+	private boolean put(int value){
+		int mask = this.drawn.length - 1;
+		for(int slot = (value * 0x9e3779b9) & mask; ; slot = (slot + 1) & mask){
+			if(this.drawn[slot] == value) return false;
+			if(this.drawn[slot] == 0){
+				this.drawn[slot] = value;
+				return true;
+			}
+		}
+	}
+
+	private void shuffleRest(){
+		this.rest = new int[this.size - this.numOfDrawn];
+		for(int index = 0; index < this.size; index++){
+			if(!this.contains(index + 1)) this.rest[this.restSize++] = index;
+		}
+		this.drawn = null;
+	}
+
+	private boolean contains(int value){
+		int mask = this.drawn.length - 1;
+		for(int slot = (value * 0x9e3779b9) & mask; this.drawn[slot] != 0; slot = (slot + 1) & mask){
+			if(this.drawn[slot] == value) return true;
+		}
+		return false;
+	}
+}
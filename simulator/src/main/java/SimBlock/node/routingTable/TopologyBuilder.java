@@ -0,0 +1,82 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.node.routingTable;
+
+import static SimBlock.settings.SimulationConfiguration.*;
+import static SimBlock.simulator.Simulator.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import SimBlock.node.Node;
+import SimBlock.simulator.SimulationContext;
+
+// Joins all nodes to the network at once. Every routing table gets its own random
+// numbers, split in node order from one generator, so the graph does not depend on the
+// number of workers. With TOPOLOGY_WORKERS > 1 the tables are prepared in parallel, e.g.
+// the candidate peers are drawn; the links are then made on the calling thread in node
+// order.
+public final class TopologyBuilder {
+	private TopologyBuilder(){}
+
+	public static void build(List<Node> nodes){
+		SplittableRandom random = REPRODUCIBLE ? new SplittableRandom(getRandom().nextLong()) : new SplittableRandom();
+		for(Node node : nodes){
+			node.getRoutingTable().setTableRandom(random.split());
+		}
+		if(TOPOLOGY_WORKERS > 1) prepare(nodes, TOPOLOGY_WORKERS);
+		for(Node node : nodes){
+			node.joinNetwork();
+		}
+	}
+
+	private static void prepare(List<Node> nodes, int workers){
+		SimulationContext context = SimulationContext.get();
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		List<Callable<Void>> jobs = new ArrayList<Callable<Void>>();
+		int chunk = (nodes.size() + workers - 1) / workers;
+		for(int first = 0; first < nodes.size(); first += chunk){
+			int from = first;
+			int to = Math.min(nodes.size(), first + chunk);
+			jobs.add(() -> {
+				context.run(() -> {
+					for(int i = from; i < to; i++){
+						nodes.get(i).getRoutingTable().prepareTable();
+					}
+				});
+				return null;
+			});
+		}
+		try {
+			for(Future<Void> job : pool.invokeAll(jobs)){
+				job.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.node.routingTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import SimBlock.node.Node;
+
+// Nodes by XOR distance from a key, in buckets of at most bucketSize. Bucket b holds the
+// nodes whose highest bit differing from the key is firstBit + b; bucket 0 also holds
+// the nodes closer than that, as the lowest bucket of a Kademlia table does.
+final class XorBuckets {
+	private final long key;
+	private final int firstBit;
+	private final int bucketSize;
+	private final Node[][] nodes;
+	private final long[][] keys;
+	private final int[] sizes;
+
+	XorBuckets(long key, int numOfBuckets, int bucketSize){
+		this.key = key;
+		this.firstBit = Long.SIZE - numOfBuckets;
+		this.bucketSize = bucketSize;
+		this.nodes = new Node[numOfBuckets][];
+		this.keys = new long[numOfBuckets][];
+		this.sizes = new int[numOfBuckets];
+	}
+
+	int getNumOfBuckets(){ return this.nodes.length; }
+
+	// the bucket of other, -1 for the own key
+	int getBucket(long other){
+		long distance = this.key ^ other;
+		if(distance == 0) return -1;
+		return Math.max(0, Long.SIZE - 1 - Long.numberOfLeadingZeros(distance) - this.firstBit);
+	}
+
+	boolean contains(Node node, long key){
+		int bucket = this.getBucket(key);
+		if(bucket < 0) return false;
+		for(int i = 0; i < this.sizes[bucket]; i++){
+			if(this.nodes[bucket][i] == node) return true;
+		}
+		return false;
+	}
+
+	// false if node is there already or its bucket is full
+	boolean add(Node node, long key){
+		int bucket = this.getBucket(key);
+		if(bucket < 0 || this.sizes[bucket] >= this.bucketSize || this.contains(node, key)) return false;
+		if(this.nodes[bucket] == null){
+			this.nodes[bucket] = new Node[this.bucketSize];
+			this.keys[bucket] = new long[this.bucketSize];
+		}
+		this.nodes[bucket][this.sizes[bucket]] = node;
+		this.keys[bucket][this.sizes[bucket]] = key;
+		this.sizes[bucket]++;
+		return true;
+	}
+
+	boolean remove(Node node, long key){
+		int bucket = this.getBucket(key);
+		if(bucket < 0) return false;
+		for(int i = 0; i < this.sizes[bucket]; i++){
+			if(this.nodes[bucket][i] == node){
+				int last = --this.sizes[bucket];
+				System.arraycopy(this.nodes[bucket], i + 1, this.nodes[bucket], i, last - i);
+				System.arraycopy(this.keys[bucket], i + 1, this.keys[bucket], i, last - i);
+				this.nodes[bucket][last] = null;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// up to bucketSize random nodes of the index for every bucket, nearest bucket first
+	List<Node> sample(KeyIndex index, SplittableRandom random){
+		List<Node> candidates = new ArrayList<Node>();
+		for(int bucket = 0; bucket < this.nodes.length; bucket++){
+			long first;
+			long last;
+			if(bucket == 0){
+				// the keys that agree with this key above firstBit
+				int low = this.firstBit + 1;
+				first = low == Long.SIZE ? 0 : this.key >>> low << low;
+				last = low == Long.SIZE ? -1L : first | ((1L << low) - 1);
+			}else{
+				// the keys that agree with this key above bit and differ at bit
+				int bit = this.firstBit + bucket;
+				first = ((this.key >>> bit) ^ 1) << bit;
+				last = first | ((1L << bit) - 1);
+			}
+			int from = index.lowerBound(first);
+			int to = index.upperBound(last);
+			PeerSampler sampler = new PeerSampler(to - from, random);
+			int found = 0;
+			int offset;
+			while(found < this.bucketSize && (offset = sampler.next()) >= 0){
+				Node node = index.get(from + offset);
+				if(index.getKey(node) == this.key) continue;
+				candidates.add(node);
+				found++;
+			}
+		}
+		return candidates;
+	}
+}
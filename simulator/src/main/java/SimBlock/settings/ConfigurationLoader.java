@@ -0,0 +1,169 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.settings;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+// Values of SimulationConfiguration and NetworkConfiguration, looked up in this order:
+// NAME=value command line arguments, -DNAME=value system properties, simulator.conf
+// (or the file named by -Dsimulator.conf=path) and finally the default in the code.
+// The values are read once, when the configuration classes are initialized, so the
+// command line has to be passed in before the simulation starts.
+public class ConfigurationLoader {
+	private static final Properties arguments = new Properties();
+	private static Properties file = null;
+
+	// keeps the constants of the configuration classes effectively final
+	private static boolean loaded = false;
+
+	public static synchronized void setArguments(String[] args){
+		if(loaded){
+			throw new IllegalStateException("The configuration is already loaded, arguments must be set before the simulation starts");
+		}
+		for(String arg : args){
+			int eq = arg.indexOf('=');
+			if(eq <= 0){
+				throw new IllegalArgumentException("Expected NAME=value but got '" + arg + "'");
+			}
+			arguments.setProperty(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+		}
+		checkKeys(arguments.stringPropertyNames(), "command line");
+	}
+
+	private static synchronized String lookup(String key){
+		if(file == null){
+			loaded = true;
+			file = loadFile();
+			checkKeys(file.stringPropertyNames(), "simulator.conf");
+		}
+		String value = arguments.getProperty(key);
+		if(value == null) value = System.getProperty(key);
+		if(value == null) value = file.getProperty(key);
+		return value == null ? null : value.trim();
+	}
+
+	private static Properties loadFile(){
+		Properties properties = new Properties();
+		try {
+			String path = System.getProperty("simulator.conf");
+			URL url = ClassLoader.getSystemResource("simulator.conf");
+			if(path == null && url == null) return properties;
+			try(InputStream in = path != null ? new FileInputStream(path) : url.openStream()){
+				properties.load(in);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return properties;
+	}
+
+	// rejects misspelled keys, which would otherwise be ignored silently
+	private static void checkKeys(Set<String> keys, String source){
+		Set<String> known = new HashSet<String>();
+		for(Class<?> configuration : Arrays.asList(SimulationConfiguration.class, NetworkConfiguration.class)){
+			for(Field field : configuration.getFields()){
+				if(Modifier.isStatic(field.getModifiers())) known.add(field.getName());
+			}
+		}
+		for(String key : keys){
+			if(!known.contains(key)){
+				throw new IllegalArgumentException("Unknown configuration key '" + key + "' in " + source);
+			}
+		}
+	}
+
+	private static IllegalArgumentException invalid(String key, String value, String expected){
+		return new IllegalArgumentException("Invalid configuration " + key + "=" + value + ": expected " + expected);
+	}
+
+	static int getInt(String key, int defaultValue, int min, int max){
+		String value = lookup(key);
+		if(value == null) return defaultValue;
+		try {
+			int result = Integer.parseInt(value);
+			if(result >= min && result <= max) return result;
+		} catch (NumberFormatException e) {
+		}
+		throw invalid(key, value, "an integer in [" + min + ", " + max + "]");
+	}
+
+	static long getLong(String key, long defaultValue, long min, long max){
+		String value = lookup(key);
+		if(value == null) return defaultValue;
+		try {
+			long result = Long.parseLong(value);
+			if(result >= min && result <= max) return result;
+		} catch (NumberFormatException e) {
+		}
+		throw invalid(key, value, "an integer in [" + min + ", " + max + "]");
+	}
+
+	static double getDouble(String key, double defaultValue, double min, double max){
+		String value = lookup(key);
+		if(value == null) return defaultValue;
+		try {
+			double result = Double.parseDouble(value);
+			if(result >= min && result <= max) return result;
+		} catch (NumberFormatException e) {
+		}
+		throw invalid(key, value, "a number in [" + min + ", " + max + "]");
+	}
+
+	static boolean getBoolean(String key, boolean defaultValue){
+		String value = lookup(key);
+		if(value == null) return defaultValue;
+		if(value.equalsIgnoreCase("true")) return true;
+		if(value.equalsIgnoreCase("false")) return false;
+		throw invalid(key, value, "true or false");
+	}
+
+	static String getChoice(String key, String defaultValue, String... choices){
+		String value = lookup(key);
+		if(value == null) return defaultValue;
+		if(Arrays.asList(choices).contains(value)) return value;
+		throw invalid(key, value, "one of " + Arrays.toString(choices));
+	}
+
+	// the name of a class that exists and implements type
+	static String getClassName(String key, String defaultValue, Class<?> type){
+		String value = lookup(key);
+		if(value == null) return defaultValue;
+		try {
+			if(type.isAssignableFrom(Class.forName(value, false, ConfigurationLoader.class.getClassLoader()))) return value;
+		} catch (ClassNotFoundException e) {
+		}
+		throw invalid(key, value, "the name of a subclass of " + type.getName());
+	}
+
+	// one of the data sets defined in the code, by name
+	static <T> T getPreset(String key, String defaultName, Map<String,T> presets){
+		String value = lookup(key);
+		T preset = presets.get(value == null ? defaultName : value);
+		if(preset == null) throw invalid(key, value, "one of " + presets.keySet());
+		return preset;
+	}
+}
@@ -15,31 +15,109 @@
  */
 package SimBlock.settings;
 
+import static SimBlock.settings.ConfigurationLoader.*;
+
+import SimBlock.block.hashing.AbstractHashing;
+import SimBlock.node.consensusAlgo.AbstractConsensusAlgo;
+import SimBlock.node.routingTable.AbstractRoutingTable;
+import SimBlock.simulator.eventSink.AbstractEventSink;
+import SimBlock.simulator.taskQueue.AbstractTaskQueue;
+
+// Every value can be overridden at run time, see ConfigurationLoader
 public class SimulationConfiguration {
 
-    public static final int NUM_OF_NODES = 10; //3;//125;//250;//500;//1000
+    public static final int NUM_OF_NODES = getInt("NUM_OF_NODES", 10, 1, Integer.MAX_VALUE); //3;//125;//250;//500;//1000
 
-    public static final String TABLE =
-        "SimBlock.node.routingTable.BitcoinCoreTable";
+    // Routing table of the nodes:
+    //	public static final String TABLE = "SimBlock.node.routingTable.BitcoinCoreTable"; // random outbound peers, degrees from DEGREE_DISTRIBUTION
+    //	public static final String TABLE = "SimBlock.node.routingTable.KademliaTable"; // XOR distance buckets of KADEMLIA_BUCKET_SIZE nodes
+    //	public static final String TABLE = "SimBlock.node.routingTable.Devp2pTable"; // up to DEVP2P_MAX_PEERS peers dialed from a discovery table
+    public static final String TABLE = getClassName("TABLE",
+        "SimBlock.node.routingTable.BitcoinCoreTable", AbstractRoutingTable.class);
+    public static final int KADEMLIA_BUCKET_SIZE = getInt("KADEMLIA_BUCKET_SIZE", 20, 1, Integer.MAX_VALUE);
+    public static final int DEVP2P_MAX_PEERS = getInt("DEVP2P_MAX_PEERS", 50, 3, Integer.MAX_VALUE);
+    // Threads drawing the candidate peers when the network is built; 1 draws them on the simulation thread.
+    // The network is the same with any number of threads.
+    public static final int TOPOLOGY_WORKERS = getInt("TOPOLOGY_WORKERS", 1, 1, Integer.MAX_VALUE);
     //	public static final String ALGO = "SimBlock.node.consensusAlgo.SampleProofOfStake";
-    public static final String ALGO = "SimBlock.node.consensusAlgo.PoPA";
+    public static final String ALGO = getClassName("ALGO", "SimBlock.node.consensusAlgo.PoPA", AbstractConsensusAlgo.class);
+
+    // Event queue engine of SimBlock.simulator.Timer
+    //	public static final String TASK_QUEUE = "SimBlock.simulator.taskQueue.PriorityTaskQueue"; // original, O(n) cancel
+    //	public static final String TASK_QUEUE = "SimBlock.simulator.taskQueue.CalendarTaskQueue"; // O(1) amortized add/poll
+    public static final String TASK_QUEUE = getClassName("TASK_QUEUE",
+        "SimBlock.simulator.taskQueue.IndexedHeapTaskQueue", AbstractTaskQueue.class); // O(log n) cancel
+
+    // Execution engine of Main:
+    // "sequential"   - a single event loop
+    // "conservative" - parallel, one logical process per region synchronised by the minimum inter-region latency
+    // "optimistic"   - parallel, one logical process per region that runs ahead and rolls back (Time Warp)
+    // All three produce the same events, only committed in a different order (see EngineCheck)
+    public static final String ENGINE = getChoice("ENGINE", "sequential", "sequential", "conservative", "optimistic");
+    public static final int NUM_OF_WORKERS = getInt("NUM_OF_WORKERS", Runtime.getRuntime().availableProcessors(), 1, Integer.MAX_VALUE);
+
+    // Optimistic engine: how far (ms) a process may run ahead of the global virtual time,
+    // and how many tasks it runs before the next commit round
+    public static final long TIME_WARP_WINDOW = getLong("TIME_WARP_WINDOW", 1000 * 10, 1, Long.MAX_VALUE);
+    public static final int TIME_WARP_BATCH = getInt("TIME_WARP_BATCH", 1000, 1, Integer.MAX_VALUE);
+
+    // Seed of the simulator's random number generator
+    public static final long RANDOM_SEED = getLong("RANDOM_SEED", 10, Long.MIN_VALUE, Long.MAX_VALUE);
+
+    // If true, runs with the same configuration produce bit-identical output:
+    // every random choice uses a seeded generator (block timestamps always follow the simulated clock)
+    public static final boolean REPRODUCIBLE = getBoolean("REPRODUCIBLE", false);
+
+    // Format of the event log the visualizer replays
+    //	public static final String EVENT_SINK = "SimBlock.simulator.eventSink.BinaryEventSink"; // output.bin, see BinaryLogConverter
+    public static final String EVENT_SINK = getClassName("EVENT_SINK",
+        "SimBlock.simulator.eventSink.JsonEventSink", AbstractEventSink.class); // output.json
+
+    // Events buffered for a background thread that writes them; 0 writes on the simulation thread.
+    // When the buffer is full the simulation waits ("block") or drops the event and counts it ("drop").
+    public static final int EVENT_BUFFER = getInt("EVENT_BUFFER", 0, 0, 1 << 30);
+    public static final String EVENT_BACKPRESSURE = getChoice("EVENT_BACKPRESSURE", "block", "block", "drop");
 
     // Unit: millisecond
-    public static final long INTERVAL = 1000 * 60 * 10; //1000*60;//1000*30*5;//1000*60*10;
+    public static final long INTERVAL = getLong("INTERVAL", 1000 * 60 * 10, 1, Long.MAX_VALUE); //1000*60;//1000*30*5;//1000*60*10;
 
     // Mining power is the number of mining (hash calculation) executed per millisecond.
-    public static final int AVERAGE_MINING_POWER = 4; //400000;
-    public static final int STDEV_OF_MINING_POWER = 1; //100000;
+    public static final int AVERAGE_MINING_POWER = getInt("AVERAGE_MINING_POWER", 4, 1, Integer.MAX_VALUE); //400000;
+    public static final int STDEV_OF_MINING_POWER = getInt("STDEV_OF_MINING_POWER", 1, 0, Integer.MAX_VALUE); //100000;
+
+    public static final int AVERAGE_COINS = getInt("AVERAGE_COINS", 4000, 0, Integer.MAX_VALUE);
+    public static final int STDEV_OF_COINS = getInt("STDEV_OF_COINS", 2000, 0, Integer.MAX_VALUE);
 
-    public static final int AVERAGE_COINS = 4000;
-    public static final int STDEV_OF_COINS = 2000;
+    public static final double STAKING_REWARD = getDouble("STAKING_REWARD", 0.01, 0, Double.MAX_VALUE);
 
-    public static final double STAKING_REWARD = 0.01;
+    // Minimum validator weight (0.7 * activity + 0.3 * reputation) to mine in MainPoPA
+    public static final double POPA_THRESHOLD = getDouble("POPA_THRESHOLD", 0.68, 0, 1);
 
-    public static final int ENDBLOCKHEIGHT = 10; //5; //100
+    public static final int ENDBLOCKHEIGHT = getInt("ENDBLOCKHEIGHT", 10, 1, Integer.MAX_VALUE); //5; //100
 
     // Unit: byte
-    public static final long BLOCKSIZE = 535000; //6110;//8000;//535000;//0.5MB
+    public static final long BLOCKSIZE = getLong("BLOCKSIZE", 535000, 1, Long.MAX_VALUE); //6110;//8000;//535000;//0.5MB
+
+    // How a block is sent to a node that asks for it after an inv:
+    // "full"    - the whole block of BLOCKSIZE bytes
+    // "compact" - a compact block (BIP 152) of the header and a short id per transaction of TX_SIZE bytes;
+    //             a node that cannot rebuild it from its mempool then asks for the full block
+    public static final String RELAY = getChoice("RELAY", "full", "full", "compact");
+    public static final long TX_SIZE = getLong("TX_SIZE", 500, 1, Long.MAX_VALUE);
+    // Share of the compact blocks a node can rebuild from its mempool
+    public static final double MEMPOOL_OVERLAP = getDouble("MEMPOOL_OVERLAP", 0.9, 0, 1);
+
+    // Blocks a node uploads at the same time. With 1 it sends one block at a time, at the bandwidth
+    // between the two regions, and starts the next when the block has arrived. With more, the active
+    // uploads share the UPLOAD_BANDWIDTH of the node max-min fairly, each limited by the
+    // DOWNLOAD_BANDWIDTH of its receiver, and the next starts as soon as a slot is free
+    public static final int UPLOAD_SLOTS = getInt("UPLOAD_SLOTS", 1, 1, Integer.MAX_VALUE);
+
+    // Mean wait (ms) before a node announces new blocks, like the inv trickling of Bitcoin Core.
+    // The blocks a node gets while it waits go to each neighbor in a single inv, leaving out those
+    // the neighbor has announced or sent to the node in the meantime.
+    // 0 announces every block to every neighbor as soon as the node has it
+    public static final long INV_TRICKLE = getLong("INV_TRICKLE", 0, 0, Long.MAX_VALUE);
 
     // Modification by Viddi
     // 1 = Very Easy
@@ -47,5 +125,17 @@ public class SimulationConfiguration {
     // 3 = Moderate
     // 4 = Hard
     // 5 = Very Hard
-    public static final int DIFFICULTY = 6;
+    // (number of leading zero hex digits of a block hash)
+    public static final int DIFFICULTY = getInt("DIFFICULTY", 6, 0, 64);
+
+    // Threads searching the nonce of a block; 1 searches on the simulation thread.
+    // If deterministic, the parallel search returns the lowest nonce, the same as with 1 thread.
+    public static final int MINING_WORKERS = getInt("MINING_WORKERS", 1, 1, Integer.MAX_VALUE);
+    public static final boolean MINING_DETERMINISTIC = getBoolean("MINING_DETERMINISTIC", true);
+
+    // How blocks get their nonce and hash; block intervals do not depend on it
+    //	public static final String HASHING = "SimBlock.block.hashing.SyntheticHashing"; // no search, made-up hash
+    //	public static final String HASHING = "SimBlock.block.hashing.LazyHashing"; // real search, when the hash is read
+    public static final String HASHING = getClassName("HASHING",
+        "SimBlock.block.hashing.RealHashing", AbstractHashing.class); // real search when the block is created
 }
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator;
+
+import static SimBlock.simulator.Network.*;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+import SimBlock.node.Node;
+import SimBlock.simulator.taskQueue.ScheduledTask;
+import SimBlock.task.AbstractMessageTask;
+import SimBlock.task.AbstractMintingTask;
+import SimBlock.task.InvTrickleTask;
+import SimBlock.task.SendNextBlockTask;
+import SimBlock.task.Task;
+
+// Parallel engine with one logical process per region. Every task is executed by
+// the process of the node it acts on, so no two threads touch the same node.
+public abstract class AbstractPartitionedEngine {
+	protected final LogicalProcess[] processes;
+	private final int numOfWorkers;
+
+	protected AbstractPartitionedEngine(int numOfWorkers){
+		int numOfRegions = getRegionList().size();
+		this.processes = new LogicalProcess[numOfRegions];
+		for(int i = 0; i < numOfRegions; i++){
+			this.processes[i] = this.createProcess(i, numOfRegions);
+		}
+		this.numOfWorkers = Math.max(1, Math.min(numOfWorkers, numOfRegions));
+	}
+
+	protected abstract LogicalProcess createProcess(int id, int numOfProcesses);
+
+	// runs the partitions until no task is left or the next task satisfies isEnd
+	protected abstract void simulate(ExecutorService workers, Predicate<Task> isEnd) throws InterruptedException, ExecutionException;
+
+	// the node whose state a task reads and modifies
+	static Node ownerOf(Task task){
+		if(task instanceof AbstractMessageTask) return ((AbstractMessageTask) task).getTo();
+		if(task instanceof AbstractMintingTask) return ((AbstractMintingTask) task).getMinter();
+		if(task instanceof SendNextBlockTask) return ((SendNextBlockTask) task).getNode();
+		if(task instanceof InvTrickleTask) return ((InvTrickleTask) task).getNode();
+		return null;
+	}
+
+	LogicalProcess getProcess(Task task, LogicalProcess sender){
+		Node owner = ownerOf(task);
+		return owner == null ? sender : this.processes[owner.getRegion()];
+	}
+
+	public void run(Predicate<Task> isEnd){
+		LogicalProcess main = Timer.getMainProcess();
+		for(LogicalProcess lp : this.processes){
+			lp.setCurrentTime(main.getCurrentTime());
+		}
+		ScheduledTask stask;
+		while((stask = main.poll()) != null){
+			LogicalProcess lp = this.getProcess(stask.getTask(), this.processes[0]);
+			lp.add(stask);
+		}
+
+		Timer.setEngine(this);
+		SimulationContext context = SimulationContext.get();
+		ExecutorService workers = Executors.newFixedThreadPool(this.numOfWorkers, job -> new Thread(() -> context.run(job)));
+		try {
+			this.simulate(workers, isEnd);
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException(e);
+		} finally {
+			workers.shutdown();
+			Timer.setEngine(null);
+			long endTime = main.getCurrentTime();
+			for(LogicalProcess lp : this.processes){
+				lp.receiveAll();
+				endTime = Math.max(endTime, lp.getCurrentTime());
+				while((stask = lp.poll()) != null){
+					main.add(stask);
+				}
+			}
+			main.setCurrentTime(endTime);
+		}
+	}
+
+	// runs the jobs on the worker pool and waits for all of them; true if any job returned true
+	protected static boolean invokeAll(ExecutorService workers, List<Callable<Boolean>> jobs) throws InterruptedException, ExecutionException {
+		boolean any = false;
+		for(Future<Boolean> result : workers.invokeAll(jobs)){
+			any |= result.get();
+		}
+		return any;
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator;
+
+import static SimBlock.simulator.Network.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+import SimBlock.simulator.taskQueue.ScheduledTask;
+import SimBlock.task.Task;
+
+// Conservative parallel discrete-event engine. Every message between regions takes at
+// least the lookahead (the smallest inter-region latency), so all processes can safely
+// run the tasks of the window [earliest pending task, earliest pending task + lookahead)
+// in parallel. The output of a window is committed in timestamp order once all processes
+// have finished it. When a process reaches the end of the simulation, the others may
+// already have run later tasks of the same window; their output is left out.
+public class ConservativeEngine extends AbstractPartitionedEngine {
+	private final long lookahead;
+
+	public ConservativeEngine(int numOfWorkers){
+		super(numOfWorkers);
+		this.lookahead = computeLookahead(this.processes.length);
+	}
+
+	protected LogicalProcess createProcess(int id, int numOfProcesses){
+		return new ConservativeProcess(id, numOfProcesses);
+	}
+
+	public long getLookahead(){ return this.lookahead; }
+
+	private static long computeLookahead(int numOfRegions){
+		long lookahead = Long.MAX_VALUE;
+		for(int from = 0; from < numOfRegions; from++){
+			for(int to = 0; to < numOfRegions; to++){
+				if(from != to) lookahead = Math.min(lookahead, getMinLatency(from, to));
+			}
+		}
+		if(lookahead <= 0){
+			throw new IllegalStateException("Conservative engine needs a positive inter-region latency, got " + lookahead);
+		}
+		return lookahead;
+	}
+
+	protected void simulate(ExecutorService workers, Predicate<Task> isEnd) throws InterruptedException, ExecutionException {
+		boolean end = false;
+		while(!end){
+			long windowStart = Long.MAX_VALUE;
+			for(LogicalProcess lp : this.processes){
+				lp.receiveAll();
+				ScheduledTask next = lp.peek();
+				if(next != null) windowStart = Math.min(windowStart, next.getScheduledTime());
+			}
+			if(windowStart == Long.MAX_VALUE) break;
+			long windowEnd = windowStart + this.lookahead;
+
+			List<Callable<ScheduledTask>> windows = new ArrayList<Callable<ScheduledTask>>();
+			for(LogicalProcess lp : this.processes){
+				((ConservativeProcess) lp).beginWindow();
+				if(lp.size() > 0) windows.add(() -> runWindow(lp, windowEnd, isEnd));
+			}
+			// the simulation ends at the earliest task any process stopped at
+			ScheduledTask bound = null;
+			for(Future<ScheduledTask> result : workers.invokeAll(windows)){
+				ScheduledTask stop = result.get();
+				if(stop != null && (bound == null || stop.compareTo(bound) < 0)) bound = stop;
+			}
+			this.commit(bound);
+			end = bound != null;
+		}
+	}
+
+	// runs the tasks before windowEnd; returns the task that ends the simulation, or null
+	private static ScheduledTask runWindow(LogicalProcess lp, long windowEnd, Predicate<Task> isEnd){
+		Timer.setCurrentProcess(lp);
+		try {
+			ScheduledTask next;
+			while((next = lp.peek()) != null && next.getScheduledTime() < windowEnd){
+				if(isEnd.test(next.getTask())) return next;
+				lp.run(lp.poll());
+			}
+			return null;
+		} finally {
+			Timer.setCurrentProcess(null);
+		}
+	}
+
+	// commits the tasks of the window before bound (all if null) in timestamp order, with the clock set to each task's time
+	private void commit(ScheduledTask bound){
+		PriorityQueue<ConservativeProcess.ExecutedTask> committed = new PriorityQueue<ConservativeProcess.ExecutedTask>(
+			(a, b) -> a.getScheduledTask().compareTo(b.getScheduledTask()));
+		for(LogicalProcess lp : this.processes){
+			committed.addAll(((ConservativeProcess) lp).endWindow(bound));
+		}
+		LogicalProcess main = Timer.getMainProcess();
+		ConservativeProcess.ExecutedTask record;
+		while((record = committed.poll()) != null){
+			main.setCurrentTime(record.getScheduledTask().getScheduledTime());
+			record.commit();
+		}
+	}
+}
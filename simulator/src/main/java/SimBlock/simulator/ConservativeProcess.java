@@ -0,0 +1,94 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import SimBlock.simulator.taskQueue.ScheduledTask;
+
+// Logical process of the conservative engine. The output of the tasks of a window is
+// held back until every process has finished the window, so the engine can commit it
+// in timestamp order and leave out the tasks that ran after the end of the simulation.
+class ConservativeProcess extends LogicalProcess {
+
+	static class ExecutedTask {
+		private final ScheduledTask stask;
+		private List<Runnable> commits = null;
+
+		private ExecutedTask(ScheduledTask stask){
+			this.stask = stask;
+		}
+
+		ScheduledTask getScheduledTask(){ return this.stask; }
+
+		void commit(){
+			if(this.commits == null) return;
+			for(Runnable action : this.commits){
+				action.run();
+			}
+		}
+	}
+
+	// tasks run in the current window, in execution (= timestamp) order
+	private final ArrayList<ExecutedTask> executed = new ArrayList<ExecutedTask>();
+	private ExecutedTask executing = null;
+	private long windowStartTime = 0L;
+
+	ConservativeProcess(int id, int numOfProcesses){
+		super(id, numOfProcesses);
+	}
+
+	void beginWindow(){
+		this.windowStartTime = this.getCurrentTime();
+	}
+
+	@Override
+	void onCommit(Runnable action){
+		if(this.executing != null){
+			if(this.executing.commits == null) this.executing.commits = new ArrayList<Runnable>();
+			this.executing.commits.add(action);
+		}else{
+			action.run();
+		}
+	}
+
+	@Override
+	void run(ScheduledTask stask){
+		ExecutedTask record = new ExecutedTask(stask);
+		this.executing = record;
+		try {
+			super.run(stask);
+		} finally {
+			this.executing = null;
+		}
+		this.executed.add(record);
+	}
+
+	// removes and returns the tasks of the window earlier than bound (all if null). The
+	// later ones ran past the end of the simulation: their output is dropped and the clock
+	// goes back to the last task that is kept.
+	List<ExecutedTask> endWindow(ScheduledTask bound){
+		int n = 0;
+		while(n < this.executed.size() && (bound == null || this.executed.get(n).stask.compareTo(bound) < 0)) n++;
+		if(n < this.executed.size()){
+			this.setCurrentTime(n > 0 ? this.executed.get(n - 1).stask.getScheduledTime() : this.windowStartTime);
+		}
+		List<ExecutedTask> committed = new ArrayList<ExecutedTask>(this.executed.subList(0, n));
+		this.executed.clear();
+		return committed;
+	}
+}
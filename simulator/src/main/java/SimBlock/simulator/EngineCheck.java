@@ -0,0 +1,136 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator;
+
+import static SimBlock.settings.SimulationConfiguration.ALGO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import SimBlock.settings.ConfigurationLoader;
+import SimBlock.simulator.eventSink.AbstractEventSink;
+
+// Runs the same simulation with the sequential, conservative and optimistic engines and
+// checks that they produce the same events. The engines commit events in different orders,
+// so the events are compared as sorted lists. Every consensus algorithm is checked, or only
+// the one given as ALGO.
+// Usage: EngineCheck [ALGO=class] [NAME=value configuration overrides shared by all runs]
+// Exits with status 1 if the events differ. Every run writes its other outputs to
+// output/enginecheck/<algorithm>/<engine>/.
+public class EngineCheck {
+	private static final String[] ENGINES = { "sequential", "conservative", "optimistic" };
+	private static final String[] ALGOS = {
+		"SimBlock.node.consensusAlgo.ProofOfWork",
+		"SimBlock.node.consensusAlgo.SampleProofOfStake",
+		"SimBlock.node.consensusAlgo.PoPA"
+	};
+
+	// keeps every event as one line of text
+	private static class EventList extends AbstractEventSink {
+		private final List<String> events = new ArrayList<String>();
+
+		public synchronized void addNode(long time, int nodeId, int regionId){
+			this.events.add("add-node " + time + " " + nodeId + " " + regionId);
+		}
+
+		public synchronized void addLink(long time, int beginNodeId, int endNodeId){
+			this.events.add("add-link " + time + " " + beginNodeId + " " + endNodeId);
+		}
+
+		public synchronized void removeLink(long time, int beginNodeId, int endNodeId){
+			this.events.add("remove-link " + time + " " + beginNodeId + " " + endNodeId);
+		}
+
+		public synchronized void addBlock(long time, int nodeId, int blockId, String prevHash, int nonce, String hash){
+			this.events.add("add-block " + time + " " + nodeId + " " + blockId + " " + prevHash + " " + nonce + " " + hash);
+		}
+
+		public synchronized void flowBlock(long transmissionTime, long receptionTime, int beginNodeId, int endNodeId, int blockId){
+			this.events.add("flow-block " + transmissionTime + " " + receptionTime + " " + beginNodeId + " " + endNodeId + " " + blockId);
+		}
+
+		public synchronized void simulationEnd(long time){
+			this.events.add("simulation-end " + time);
+		}
+
+		public void close(){}
+
+		synchronized List<String> sorted(){
+			List<String> sorted = new ArrayList<String>(this.events);
+			Collections.sort(sorted);
+			return sorted;
+		}
+	}
+
+	public static void main(String[] args){
+		ConfigurationLoader.setArguments(args);
+		String[] algos = ALGOS;
+		for(String arg : args){
+			if(arg.startsWith("ALGO=")) algos = new String[]{ ALGO };
+		}
+
+		boolean same = true;
+		for(String algo : algos){
+			same &= check(algo);
+		}
+		if(!same) System.exit(1);
+	}
+
+	// runs the algorithm with every engine and prints whether the events are the same
+	private static boolean check(String algo){
+		String name = algo.substring(algo.lastIndexOf('.') + 1);
+		List<List<String>> results = new ArrayList<List<String>>();
+		for(String engineName : ENGINES){
+			SimulationContext context = new SimulationContext(Main.OUT_FILE_URI.resolve("./enginecheck/" + name + "/" + engineName + "/"));
+			context.setEngineName(engineName);
+			context.setAlgo(algo);
+			EventList events = new EventList();
+			context.setEventSink(events);
+			try {
+				context.run(Main::run);
+			} finally {
+				context.closeOutputs();
+			}
+			results.add(events.sorted());
+		}
+
+		boolean same = true;
+		for(int i = 1; i < ENGINES.length; i++){
+			String difference = firstDifference(results.get(0), results.get(i));
+			if(difference != null){
+				System.out.println(name + ": " + ENGINES[i] + " differs from " + ENGINES[0] + ": " + difference);
+				same = false;
+			}
+		}
+		if(same) System.out.println(name + ": all engines produced the same " + results.get(0).size() + " events");
+		return same;
+	}
+
+	// the first event, in sorted order, that only one of the lists has, or null if they are equal
+	private static String firstDifference(List<String> expected, List<String> actual){
+		int i = 0;
+		while(i < expected.size() && i < actual.size()){
+			int order = expected.get(i).compareTo(actual.get(i));
+			if(order < 0) return "missing " + expected.get(i);
+			if(order > 0) return "extra " + actual.get(i);
+			i++;
+		}
+		if(i < expected.size()) return "missing " + expected.get(i);
+		if(i < actual.size()) return "extra " + actual.get(i);
+		return null;
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator;
+
+// Counts of non-negative values in log-linear buckets, as in an HDR histogram: values
+// below 2^SUB_BITS have a bucket each, larger ones share a bucket with the values that
+// agree in their SUB_BITS highest bits. Percentiles are within 1/2^(SUB_BITS-1) of the
+// recorded values and the memory does not depend on the number of values.
+final class LatencyHistogram {
+	private static final int SUB_BITS = 8;
+	private static final int HALF = 1 << (SUB_BITS - 1);
+
+	private final long[] counts = new long[(65 - SUB_BITS) * HALF];
+	private long count = 0;
+	private long min = Long.MAX_VALUE;
+	private long max = 0;
+	private long sum = 0;
+
+	void record(long value){
+		if(value < 0) throw new IllegalArgumentException("Negative value " + value);
+		this.counts[index(value)]++;
+		this.count++;
+		this.min = Math.min(this.min, value);
+		this.max = Math.max(this.max, value);
+		this.sum += value;
+	}
+
+	long getCount(){ return this.count; }
+	long getMin(){ return this.count == 0 ? 0 : this.min; }
+	long getMax(){ return this.max; }
+	double getMean(){ return this.count == 0 ? 0 : (double) this.sum / this.count; }
+
+	// the value that percent of the recorded values do not exceed, up to the bucket width
+	long getValueAtPercentile(double percent){
+		if(this.count == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(percent / 100 * this.count));
+		long seen = 0;
+		for(int i = 0; i < this.counts.length; i++){
+			seen += this.counts[i];
+			if(seen >= rank) return Math.max(this.min, Math.min(this.max, highestValue(i)));
+		}
+		return this.max;
+	}
+
+	private static int index(long value){
+		int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BITS);
+		return (shift << (SUB_BITS - 1)) + (int) (value >>> shift);
+	}
+
+	// the largest value that falls into bucket i
+	private static long highestValue(int i){
+		int shift = Math.max(0, i / HALF - 1);
+		long sub = i - ((long) shift << (SUB_BITS - 1));
+		return ((sub + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator;
+
+import static SimBlock.settings.SimulationConfiguration.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import SimBlock.node.Node;
+import SimBlock.simulator.taskQueue.AbstractTaskQueue;
+import SimBlock.simulator.taskQueue.ScheduledTask;
+import SimBlock.task.Task;
+
+// A clock with its own task queue. The sequential simulator has exactly one;
+// a partitioned engine runs one per partition and exchanges tasks through the inboxes.
+public class LogicalProcess {
+	private final int id;
+	private final int numOfProcesses;
+	final AbstractTaskQueue taskQueue = AbstractTaskQueue.create(TASK_QUEUE);
+	final Map<Task,ScheduledTask> taskMap = new HashMap<Task,ScheduledTask>();
+	private final Queue<ScheduledTask> inbox = new ConcurrentLinkedQueue<ScheduledTask>();
+	private long currentTime = 0L;
+	private long sequence = 0L;
+	// the node of the running task and its sequence number, null outside of tasks
+	private Node running = null;
+	private long runningSequence = 0L;
+
+	public LogicalProcess(int id, int numOfProcesses){
+		this.id = id;
+		this.numOfProcesses = numOfProcesses;
+	}
+
+	public int getId(){ return this.id; }
+	public long getCurrentTime(){ return this.currentTime; }
+	public int size(){ return this.taskQueue.size(); }
+
+	void setCurrentTime(long time){ this.currentTime = time; }
+
+	// Sequence numbers break ties between tasks for the same time. A task scheduled by a
+	// node's task is numbered by that node, so the order of a node's tasks depends only on
+	// its own history and is the same in every engine. Like a Lamport clock, the node's
+	// count first moves past the running task's number, so a task scheduled for the
+	// current time never sorts before the tasks that already ran. Tasks scheduled outside
+	// of tasks (the setup) are numbered by the process, interleaved by process id; both
+	// kinds are spread over numOfNodes + 2 slots so that they stay unique.
+	ScheduledTask newScheduledTask(Task task, long time){
+		long slots = SimulationContext.get().getNumOfNodes() + 2L;
+		long sequence = this.running != null
+			? this.running.nextTaskNumber(this.runningSequence / slots + 1) * slots + this.running.getNodeID() + 1
+			: (this.sequence++ * this.numOfProcesses + this.id) * slots;
+		return new ScheduledTask(task, time, sequence);
+	}
+
+	// called on the sending process; the destination may belong to another thread
+	void schedule(ScheduledTask stask, LogicalProcess destination){
+		if(destination == this){
+			this.add(stask);
+		}else{
+			destination.inbox.add(stask);
+		}
+	}
+
+	void add(ScheduledTask stask){
+		this.taskMap.put(stask.getTask(), stask);
+		this.taskQueue.add(stask);
+	}
+
+	// moves the tasks sent by other processes into the queue, returns false if there were none
+	boolean receiveAll(){
+		boolean received = false;
+		ScheduledTask stask;
+		while((stask = this.inbox.poll()) != null){
+			if(stask.getScheduledTime() < this.currentTime){
+				throw new IllegalStateException("Causality error: task for " + stask.getScheduledTime() + " received at " + this.currentTime);
+			}
+			this.add(stask);
+			received = true;
+		}
+		return received;
+	}
+
+	boolean removeTask(Task task){
+		ScheduledTask stask = this.taskMap.remove(task);
+		return stask != null && this.taskQueue.remove(stask);
+	}
+
+	ScheduledTask peek(){ return this.taskQueue.peek(); }
+
+	ScheduledTask poll(){
+		ScheduledTask stask = this.taskQueue.poll();
+		if(stask != null){
+			this.taskMap.remove(stask.getTask(), stask);
+		}
+		return stask;
+	}
+
+	void run(ScheduledTask stask){
+		this.currentTime = stask.getScheduledTime();
+		this.running = AbstractPartitionedEngine.ownerOf(stask.getTask());
+		this.runningSequence = stask.getSequence();
+		try {
+			stask.getTask().run();
+		} finally {
+			this.running = null;
+		}
+	}
+
+	// side effects visible outside the simulated nodes (output, statistics)
+	void onCommit(Runnable action){
+		action.run();
+	}
+}
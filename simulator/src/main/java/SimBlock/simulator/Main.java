@@ -20,10 +20,6 @@ import static SimBlock.simulator.Network.*;
 import static SimBlock.simulator.Simulator.*;
 import static SimBlock.simulator.Timer.*;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -32,17 +28,16 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
 import java.util.Set;
 
 import SimBlock.block.Block;
 import SimBlock.node.Node;
+import SimBlock.node.routingTable.AbstractRoutingTable;
+import SimBlock.node.routingTable.TopologyBuilder;
+import SimBlock.settings.ConfigurationLoader;
 import SimBlock.task.AbstractMintingTask;
 
 public class Main {
-	public static Random random = new Random(10);
-	public static long time1 = 0;//a value to know the simulation time.
-
 	public static URI CONF_FILE_URI;
 	public static URI OUT_FILE_URI;
 	static {
@@ -54,19 +49,16 @@ public class Main {
 		}
 	}
 
-	public static PrintWriter OUT_JSON_FILE;
-	public static PrintWriter STATIC_JSON_FILE;
-	static {
-		try{
-			OUT_JSON_FILE = new PrintWriter(new BufferedWriter(new FileWriter(new File(OUT_FILE_URI.resolve("./output.json")))));
-			STATIC_JSON_FILE = new PrintWriter(new BufferedWriter(new FileWriter(new File(OUT_FILE_URI.resolve("./static.json")))));
-		} catch (IOException e){
-			e.printStackTrace();
-		}
-	}
-
+	// arguments are NAME=value configuration overrides
 	public static void main(String[] args){
+		ConfigurationLoader.setArguments(args);
+		run();
+	}
 
+	// runs one simulation in the context bound to the calling thread
+	public static void run(){
+		SimulationContext context = SimulationContext.get();
+		long time1 = 0;//a value to know the simulation time.
 		// Added and Modified By Viddi
 		// mengambil start waktu awal compile
 		java.time.LocalTime startCompile;
@@ -78,26 +70,36 @@ public class Main {
 		long start = System.currentTimeMillis();
 		setTargetInterval(INTERVAL);
 
-		OUT_JSON_FILE.print("["); //start json format
-		OUT_JSON_FILE.flush();
-
 		printRegion();
 
-		constructNetworkWithAllNode(NUM_OF_NODES);
-
-		int j=1;
-		while(getTask() != null){
-
-			if(getTask() instanceof AbstractMintingTask){
-				AbstractMintingTask task = (AbstractMintingTask) getTask();
-				if(task.getParent().getHeight() == j) j++;
-				if(j > ENDBLOCKHEIGHT){break;}
+		constructNetworkWithAllNode(context.getNumOfNodes());
+
+		String engineName = context.getEngineName();
+		if(engineName.equals("conservative") || engineName.equals("optimistic")){
+			AbstractPartitionedEngine engine = engineName.equals("optimistic")
+				? new TimeWarpEngine(NUM_OF_WORKERS, TIME_WARP_WINDOW, TIME_WARP_BATCH)
+				: new ConservativeEngine(NUM_OF_WORKERS);
+			engine.run(task ->
+				task instanceof AbstractMintingTask && ((AbstractMintingTask) task).getParent().getHeight() >= context.getEndBlockHeight());
+			// links do not change during the simulation, so the graphs can be written afterwards
+			for(int j = 2; j <= context.getEndBlockHeight(); j++){
 				if(j%100==0 || j==2) writeGraph(j);
 			}
-			runTask();
+		}else{
+			int j=1;
+			while(getTask() != null){
+
+				if(getTask() instanceof AbstractMintingTask){
+					AbstractMintingTask task = (AbstractMintingTask) getTask();
+					if(task.getParent().getHeight() == j) j++;
+					if(j > context.getEndBlockHeight()){break;}
+					if(j%100==0 || j==2) writeGraph(j);
+				}
+				runTask();
+			}
 		}
 
-		printAllPropagation();
+		printPropagation();
 
 		Set<Block> blocks = new HashSet<Block>();
 		Block block  = getSimulatedNodes().get(0).getBlock();
@@ -124,8 +126,7 @@ public class Main {
 	        public int compare(Block a, Block b){
 	          int order = Long.signum(a.getTime() - b.getTime());
 	          if(order != 0) return order;
-	          order = System.identityHashCode(a) - System.identityHashCode(b);
-			  return order;
+	          return Integer.compare(a.getId(), b.getId());
 	        }
 	    });
 		for(Block orphan : orphans){
@@ -133,22 +134,15 @@ public class Main {
 		}
 		System.out.println(averageOrhansSize);
 
-		try {
-			FileWriter fw = new FileWriter(new File(OUT_FILE_URI.resolve("./blockList.txt")), false);
-            PrintWriter pw = new PrintWriter(new BufferedWriter(fw));
-
-            for(Block b:blockList){
-    					if(!orphans.contains(b)){
-    						pw.println("OnChain : "+b.getHeight()+" : "+b);
-    					}else{
-    						pw.println("Orphan : "+b.getHeight()+" : "+b);
-    					}
-            }
-            pw.close();
-
-        } catch (IOException ex) {
-            ex.printStackTrace();
-    }
+		PrintWriter pw = context.getOutput("blockList.txt");
+		for(Block b:blockList){
+			if(!orphans.contains(b)){
+				pw.println("OnChain : "+b.getHeight()+" : "+b);
+			}else{
+				pw.println("Orphan : "+b.getHeight()+" : "+b);
+			}
+		}
+		pw.close();
 
 		// Added and Modified By Viddi
 	// 	try {
@@ -174,14 +168,8 @@ public class Main {
 	// 	}
 		// End of Addition and Modified By Viddi
 
-		OUT_JSON_FILE.print("{");
-		OUT_JSON_FILE.print(	"\"kind\":\"simulation-end\",");
-		OUT_JSON_FILE.print(	"\"content\":{");
-		OUT_JSON_FILE.print(		"\"timestamp\":" + getCurrentTime());
-		OUT_JSON_FILE.print(	"}");
-		OUT_JSON_FILE.print("}");
-		OUT_JSON_FILE.print("]"); //end json format
-		OUT_JSON_FILE.close();
+		getEventSink().simulationEnd(getCurrentTime());
+		context.closeOutputs();
 		long end = System.currentTimeMillis();
 		time1 += end -start;
 
@@ -193,9 +181,9 @@ public class Main {
 		System.out.println("Duration time : " +time1/60+" seconds");
 		System.out.println();
 		// mengambil waktu akhir compile
-		System.out.println("Difficulty Level   : " + DIFFICULTY);
-		System.out.println("Number of NODE     : " + NUM_OF_NODES);
-		System.out.println("Number of BLOCK    : " + ENDBLOCKHEIGHT);
+		System.out.println("Difficulty Level   : " + context.getDifficulty());
+		System.out.println("Number of NODE     : " + context.getNumOfNodes());
+		System.out.println("Number of BLOCK    : " + context.getEndBlockHeight());
 		System.out.println("Compile Time Start : " + startCompile);
 		System.out.println("Compile Time Stop  : " + java.time.LocalTime.now());
 //		System.out.println(getidHeight());
@@ -209,37 +197,38 @@ public class Main {
 	//シナリオファイルで上の参加タスクをTimer入れていく．
 
 	public static ArrayList<Integer> makeRandomList(double[] distribution ,boolean facum){
+		int numOfNodes = SimulationContext.get().getNumOfNodes();
 		ArrayList<Integer> list = new ArrayList<Integer>();
 		int index=0;
 
 		if(facum){
 			for(; index < distribution.length ; index++){
-				while(list.size() <= NUM_OF_NODES * distribution[index]){
+				while(list.size() <= numOfNodes * distribution[index]){
 					list.add(index);
 				}
 			}
-			while(list.size() < NUM_OF_NODES){
+			while(list.size() < numOfNodes){
 				list.add(index);
 			}
 		}else{
 			double acumulative = 0.0;
 			for(; index < distribution.length ; index++){
 				acumulative += distribution[index];
-				while(list.size() <= NUM_OF_NODES * acumulative){
+				while(list.size() <= numOfNodes * acumulative){
 					list.add(index);
 				}
 			}
-			while(list.size() < NUM_OF_NODES){
+			while(list.size() < numOfNodes){
 				list.add(index);
 			}
 		}
 
-		Collections.shuffle(list, random);
+		Collections.shuffle(list, getRandom());
 		return list;
 	}
 
 	public static int genMiningPower(){
-		double r = random.nextGaussian();
+		double r = getRandom().nextGaussian();
 
 		return  Math.max((int)(r * STDEV_OF_MINING_POWER + AVERAGE_MINING_POWER),1);
 	}
@@ -251,45 +240,27 @@ public class Main {
 		List<Integer> degreeList  = makeRandomList(degreeDistribution,true);
 
 		for(int id = 1; id <= numNodes; id++){
-			Node node = new Node(id,degreeList.get(id-1)+1,regionList.get(id-1), genMiningPower(),TABLE,ALGO);
+			Node node = new Node(id,degreeList.get(id-1)+1,regionList.get(id-1), genMiningPower(),TABLE,SimulationContext.get().getAlgo());
 			addNode(node);
-
-			OUT_JSON_FILE.print("{");
-			OUT_JSON_FILE.print(	"\"kind\":\"add-node\",");
-			OUT_JSON_FILE.print(	"\"content\":{");
-			OUT_JSON_FILE.print(		"\"timestamp-awal\":"+getCurrentTime()+",");
-			OUT_JSON_FILE.print(		"\"node-id\":" + id + ",");
-			OUT_JSON_FILE.print(		"\"region-id\":" + regionList.get(id-1));
-			OUT_JSON_FILE.print(	"}");
-			OUT_JSON_FILE.print("},");
-			OUT_JSON_FILE.flush();
-
+			getEventSink().addNode(getCurrentTime(), id, regionList.get(id-1));
 		}
 
-		for(Node node: getSimulatedNodes()){
-			node.joinNetwork();
-		}
+		TopologyBuilder.build(getSimulatedNodes());
 
 		getSimulatedNodes().get(0).genesisBlock();
 	}
 
 	public static void writeGraph(int j){
-		try {
-			FileWriter fw = new FileWriter(new File(OUT_FILE_URI.resolve("./graph/"+ j +".txt")), false);
-			PrintWriter pw = new PrintWriter(new BufferedWriter(fw));
-
-            for(int index =1;index<=getSimulatedNodes().size();index++){
-    			Node node = getSimulatedNodes().get(index-1);
-    			for(int i=0;i<node.getNeighbors().size();i++){
-    				Node neighter = node.getNeighbors().get(i);
-    				pw.println(node.getNodeID()+" " +neighter.getNodeID());
-    			}
-            }
-            pw.close();
-
-        } catch (IOException ex) {
-            ex.printStackTrace();
-        }
+		PrintWriter pw = SimulationContext.get().getOutput("graph/"+ j +".txt");
+		for(int index =1;index<=getSimulatedNodes().size();index++){
+			Node node = getSimulatedNodes().get(index-1);
+			AbstractRoutingTable table = node.getRoutingTable();
+			int[] neighbors = table.getNeighborIds();
+			for(int i=0;i<table.getNumOfNeighbors();i++){
+				pw.println(node.getNodeID()+" " +neighbors[i]);
+			}
+		}
+		pw.close();
 	}
 
 }
@@ -17,63 +17,45 @@
 package SimBlock.simulator;
 
 import static SimBlock.settings.SimulationConfiguration.ALGO;
-import static SimBlock.settings.SimulationConfiguration.NUM_OF_NODES;
 import static SimBlock.settings.SimulationConfiguration.TABLE;
 import static SimBlock.simulator.Network.getDegreeDistribution;
 import static SimBlock.simulator.Network.getRegionDistribution;
+import static SimBlock.simulator.RandomStreams.MINTING;
+import static SimBlock.simulator.RandomStreams.nextDouble;
+import static SimBlock.simulator.Simulator.getRandom;
+import static SimBlock.simulator.Timer.getCurrentTime;
 
 import SimBlock.block.PoPABlock;
 import SimBlock.node.PoPANode;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
+import SimBlock.settings.ConfigurationLoader;
 import java.io.PrintWriter;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 public class MainPoPA {
 
-    public static Random random = new Random(10);
+    public static final String OUT_JSON_NAME = "popa_output.json";
 
-    public static URI CONF_FILE_URI;
-    public static URI OUT_FILE_URI;
-
-    static {
-        try {
-            CONF_FILE_URI = ClassLoader.getSystemResource(
-                "simulator.conf"
-            ).toURI();
-            OUT_FILE_URI = CONF_FILE_URI.resolve(new URI("../output/"));
-        } catch (URISyntaxException e) {
-            e.printStackTrace();
-        }
-    }
-
-    public static PrintWriter OUT_JSON_FILE;
-
-    static {
-        try {
-            OUT_JSON_FILE = new PrintWriter(
-                new BufferedWriter(
-                    new FileWriter(
-                        new File(OUT_FILE_URI.resolve("./popa_output.json"))
-                    )
-                )
-            );
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    /**
+     * @param args NAME=value configuration overrides
+     */
+    public static void main(String[] args) {
+        ConfigurationLoader.setArguments(args);
+        run();
     }
 
-    public static void main(String[] args) {
+    /**
+     * Runs one PoPA simulation in the context bound to the calling thread.
+     *
+     * @return the number of blocks mined
+     */
+    public static int run() {
+        SimulationContext context = SimulationContext.get();
+        PrintWriter OUT_JSON_FILE = context.getOutput(OUT_JSON_NAME);
         System.out.println("[START] PoPA Simulation...");
 
         OUT_JSON_FILE.print("[");
@@ -82,7 +64,7 @@ public class MainPoPA {
         List<Integer> regionList = makeRandomList(regionDistribution, false);
         double[] degreeDistribution = getDegreeDistribution();
         List<Integer> degreeList = makeRandomList(degreeDistribution, true);
-        int numNodes = NUM_OF_NODES;
+        int numNodes = context.getNumOfNodes();
         List<PoPANode> nodes = new ArrayList<>();
         for (int i = 1; i <= numNodes; i++) {
             PoPANode node = new PoPANode(
@@ -97,11 +79,11 @@ public class MainPoPA {
             // for different activity sources - may be utilized in future
             node.addActivityFromSource(
                 "bluetooth_watch",
-                0.75 + random.nextDouble() * 0.1
+                0.75 + getRandom().nextDouble() * 0.1
             );
             node.addActivityFromSource(
                 "phone_sensor",
-                0.65 + random.nextDouble() * 0.1
+                0.65 + getRandom().nextDouble() * 0.1
             );
 
             nodes.add(node);
@@ -138,7 +120,7 @@ public class MainPoPA {
         );
 
         int blockCount = 1;
-        double threshold = 0.68;
+        double threshold = context.getThreshold();
 
         // Sort nodes by descending validator weight
         nodes.sort(
@@ -155,13 +137,20 @@ public class MainPoPA {
                 0.7 * node.getActivityScore() + 0.3 * node.getReputationScore();
 
             if (weighted >= threshold) {
+                // This driver has no tasks to move the clock. Blocks arrive as a Poisson
+                // process with PoPA's target interval as the mean, so the difficulty
+                // adjustment sees blocks both faster and slower than its target. The
+                // draw is keyed by minter and parent, like the mining times of Main.
+                double u = nextDouble(MINTING, node.getNodeID(), -1, currentTip.getId());
+                long interval = (long) (-Math.log(1.0 - u) * PoPABlock.TARGET_INTERVAL);
+                context.getMainProcess().setCurrentTime(getCurrentTime() + interval);
                 String hash = node.generateActivityHash();
-                int nonce = random.nextInt(100000);
+                int nonce = getRandom().nextInt(100000);
 
                 PoPABlock newBlock = new PoPABlock(
                     currentTip,
                     node,
-                    System.currentTimeMillis(),
+                    getCurrentTime(),
                     node.getActivityScore(),
                     hash,
                     nonce
@@ -282,17 +271,19 @@ public class MainPoPA {
         System.out.println(
             "[END] Simulation complete. Blocks mined: " + (blockCount - 1)
         );
+        return blockCount - 1;
     }
 
     public static ArrayList<Integer> makeRandomList(
         double[] distribution,
         boolean facum
     ) {
+        int numOfNodes = SimulationContext.get().getNumOfNodes();
         ArrayList<Integer> list = new ArrayList<>();
         int index = 0;
         if (facum) {
             for (; index < distribution.length; index++) {
-                while (list.size() <= NUM_OF_NODES * distribution[index]) {
+                while (list.size() <= numOfNodes * distribution[index]) {
                     list.add(index);
                 }
             }
@@ -300,19 +291,19 @@ public class MainPoPA {
             double acc = 0.0;
             for (; index < distribution.length; index++) {
                 acc += distribution[index];
-                while (list.size() <= NUM_OF_NODES * acc) {
+                while (list.size() <= numOfNodes * acc) {
                     list.add(index);
                 }
             }
         }
-        while (list.size() < NUM_OF_NODES) {
+        while (list.size() < numOfNodes) {
             list.add(index);
         }
-        Collections.shuffle(list, random);
+        Collections.shuffle(list, getRandom());
         return list;
     }
 
     public static int genPower() {
-        return Math.max((int) (random.nextGaussian() * 10 + 50), 1);
+        return Math.max((int) (getRandom().nextGaussian() * 10 + 50), 1);
     }
 }
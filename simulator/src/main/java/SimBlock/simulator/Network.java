@@ -16,17 +16,31 @@
 package SimBlock.simulator;
 
 import static SimBlock.settings.NetworkConfiguration.*;
-import static SimBlock.simulator.Main.*;
+import static SimBlock.simulator.Simulator.*;
 
+import java.io.PrintWriter;
 import java.util.List;
 
+import SimBlock.node.Node;
+
 public class Network {
-	// latency according with 20% variance pallet distribution
-	public static final long getLatency(int from, int to){
+	// latency according with 20% variance pallet distribution, for the uniform random number u in [0, 1)
+	public static final long getLatency(int from, int to, double u){
 		long mean = LATENCY[from][to];
 		double shape = 0.2 * mean;
 		double scale = mean - 5;
-		return Math.round( scale / Math.pow(random.nextDouble(),1.0/shape) );
+		return Math.round( scale / Math.pow(u,1.0/shape) );
+	}
+
+	// the latency of the number-th message from the node from to the node to, drawn from the stream of the link
+	public static final long getLatency(Node from, Node to, long number){
+		double u = RandomStreams.nextDouble(RandomStreams.LATENCY, from.getNodeID(), to.getNodeID(), number);
+		return getLatency(from.getRegion(), to.getRegion(), u);
+	}
+
+	// lower bound of getLatency(from, to, u): the pareto distribution never goes below its scale
+	public static final long getMinLatency(int from, int to){
+		return LATENCY[from][to] - 5;
 	}
 
 	// bandwidth
@@ -34,6 +48,14 @@ public class Network {
 		return Math.min(UPLOAD_BANDWIDTH[from], DOWNLOAD_BANDWIDTH[to]);
 	}
 
+	public static final long getUploadBandwidth(int region) {
+		return UPLOAD_BANDWIDTH[region];
+	}
+
+	public static final long getDownloadBandwidth(int region) {
+		return DOWNLOAD_BANDWIDTH[region];
+	}
+
 	public static List<String> getRegionList() {
 		return REGION_LIST;
 	}
@@ -47,6 +69,7 @@ public class Network {
 	}
 
 	public static void printRegion(){
+		PrintWriter STATIC_JSON_FILE = getStaticJsonFile();
 		STATIC_JSON_FILE.print("{\"region\":[");
 
 		int id = 0;
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator;
+
+import java.io.PrintStream;
+import java.util.HashMap;
+
+// Time for every block to reach a share of the nodes. Only the number of nodes a block
+// has arrived at is kept per block, until it has reached all of them; when it reaches the
+// share of a level, the time since the block was minted goes into that level's histogram.
+// Every engine commits arrivals in timestamp order, so the k-th arrival counted is the one
+// with the k-th smallest latency. Nodes report a block only the first time it arrives.
+final class PropagationRecorder {
+	// percent of the nodes
+	private static final int[] LEVELS = { 50, 90, 100 };
+	private static final double[] PERCENTILES = { 50, 90, 99 };
+
+	// arrivals by block id, for the blocks that have not reached every node yet
+	private final HashMap<Integer,Integer> arrivals = new HashMap<Integer,Integer>();
+	private int numOfBlocks = 0;
+	private final LatencyHistogram[] histograms = new LatencyHistogram[LEVELS.length];
+
+	PropagationRecorder(){
+		for(int i = 0; i < LEVELS.length; i++){
+			this.histograms[i] = new LatencyHistogram();
+		}
+	}
+
+	synchronized void arrive(int blockId, long latency, int numOfNodes){
+		Integer previous = this.arrivals.get(blockId);
+		int count = previous == null ? 1 : previous + 1;
+		if(count == 1) this.numOfBlocks++;
+		for(int i = 0; i < LEVELS.length; i++){
+			// the first arrival at which at least LEVELS[i] percent of the nodes have the block
+			if(count == Math.max(1, (int) (((long) numOfNodes * LEVELS[i] + 99) / 100))){
+				this.histograms[i].record(latency);
+			}
+		}
+		if(count < numOfNodes){
+			this.arrivals.put(blockId, count);
+		}else if(previous != null){
+			this.arrivals.remove(blockId);
+		}
+	}
+
+	synchronized void print(PrintStream out){
+		out.println("Propagation of " + this.numOfBlocks + " blocks (ms)");
+		for(int i = 0; i < LEVELS.length; i++){
+			LatencyHistogram histogram = this.histograms[i];
+			StringBuilder line = new StringBuilder();
+			line.append("  ").append(LEVELS[i]).append("% of nodes: ").append(histogram.getCount()).append(" blocks");
+			for(double percentile : PERCENTILES){
+				line.append(", p").append((int) percentile).append(' ').append(histogram.getValueAtPercentile(percentile));
+			}
+			line.append(", mean ").append(String.format("%.1f", histogram.getMean())).append(", max ").append(histogram.getMax());
+			out.println(line);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator;
+
+import java.util.SplittableRandom;
+
+// Independent random streams keyed by the seed of the run, a purpose and the nodes
+// involved. A draw is the counter-th number of the SplittableRandom seeded with the key
+// of its stream, computed directly, so it depends only on what it is drawn for (e.g. the
+// block a message carries) and not on how many numbers other events drew before it.
+public final class RandomStreams {
+	public static final int LATENCY = 1;
+	public static final int MINTING = 2;
+	public static final int MEMPOOL = 3;
+	public static final int DEVICE = 4;
+	public static final int TRICKLE = 5;
+
+	// the increment of SplittableRandom
+	private static final long GAMMA = 0x9e3779b97f4a7c15L;
+
+	private RandomStreams(){
+	}
+
+	// the key of the stream for purpose between the nodes a and b
+	public static long key(int purpose, int a, int b){
+		long key = mix64(SimulationContext.get().getStreamSeed() + purpose * GAMMA);
+		key = mix64(key + (a + 1L) * GAMMA);
+		return mix64(key + (b + 1L) * GAMMA);
+	}
+
+	// the same number as new SplittableRandom(key) returns after counter others
+	public static long nextLong(long key, long counter){
+		return mix64(key + (counter + 1) * GAMMA);
+	}
+
+	// uniform in [0, 1), like SplittableRandom.nextDouble
+	public static double nextDouble(long key, long counter){
+		return (nextLong(key, counter) >>> 11) * 0x1.0p-53;
+	}
+
+	// the counter-th number of the stream for purpose between a and b
+	public static double nextDouble(int purpose, int a, int b, long counter){
+		return nextDouble(key(purpose, a, b), counter);
+	}
+
+	// the stream for purpose of node, for sequences drawn in a fixed order
+	public static SplittableRandom stream(int purpose, int node){
+		return new SplittableRandom(key(purpose, node, -1));
+	}
+
+	// the finalizer of SplittableRandom (Stafford's variant 13)
+	private static long mix64(long z){
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator;
+
+import static SimBlock.settings.SimulationConfiguration.*;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import SimBlock.block.BlockStore;
+import SimBlock.node.Node;
+import SimBlock.node.routingTable.KeyIndex;
+import SimBlock.simulator.eventSink.AbstractEventSink;
+import SimBlock.simulator.eventSink.AsyncEventSink;
+
+// Everything one simulation run owns: the clock and task queue, the nodes, the random
+// number generator, the output files and the parameters a sweep varies. The static
+// facades (Timer, Simulator) resolve to the context bound to the calling thread, or to
+// a shared default context, so independent runs can share one JVM.
+public class SimulationContext {
+	private static final ThreadLocal<SimulationContext> bound = new ThreadLocal<SimulationContext>();
+	private static SimulationContext defaultContext = null;
+
+	private final URI outputDir;
+	private int numOfNodes = NUM_OF_NODES;
+	private int difficulty = DIFFICULTY;
+	private int endBlockHeight = ENDBLOCKHEIGHT;
+	private double threshold = POPA_THRESHOLD;
+	private long randomSeed = RANDOM_SEED;
+	private String engineName = ENGINE;
+	private String algo = ALGO;
+	private Random random = new Random(RANDOM_SEED);
+
+	private final LogicalProcess process = new LogicalProcess(0, 1);
+	private AbstractPartitionedEngine engine = null;
+	private final ArrayList<Node> simulatedNodes = new ArrayList<Node>();
+	private long targetInterval;
+	private final PropagationRecorder propagation = new PropagationRecorder();
+	private BlockStore blockStore = null;
+	private KeyIndex keyIndex = null;
+	// seeds the node keys and the random streams of runs that are not REPRODUCIBLE
+	private final long salt = new SplittableRandom().nextLong();
+	private final Map<String,PrintWriter> outputs = new HashMap<String,PrintWriter>();
+	private AbstractEventSink eventSink = null;
+
+	public SimulationContext(URI outputDir){
+		this.outputDir = outputDir;
+	}
+
+	public static SimulationContext get(){
+		SimulationContext context = bound.get();
+		return context != null ? context : getDefault();
+	}
+
+	private static synchronized SimulationContext getDefault(){
+		if(defaultContext == null) defaultContext = new SimulationContext(Main.OUT_FILE_URI);
+		return defaultContext;
+	}
+
+	// runs the action with this context bound to the calling thread
+	public void run(Runnable action){
+		SimulationContext previous = bound.get();
+		bound.set(this);
+		try {
+			action.run();
+		} finally {
+			bound.set(previous);
+		}
+	}
+
+	public URI getOutputDir(){ return this.outputDir; }
+	public int getNumOfNodes(){ return this.numOfNodes; }
+	public int getDifficulty(){ return this.difficulty; }
+	public int getEndBlockHeight(){ return this.endBlockHeight; }
+	public double getThreshold(){ return this.threshold; }
+	public long getRandomSeed(){ return this.randomSeed; }
+	public String getEngineName(){ return this.engineName; }
+	public String getAlgo(){ return this.algo; }
+	public Random getRandom(){ return this.random; }
+	// the seed of RandomStreams
+	public long getStreamSeed(){ return REPRODUCIBLE ? this.randomSeed : this.salt; }
+
+	public void setNumOfNodes(int numOfNodes){ this.numOfNodes = numOfNodes; }
+	public void setDifficulty(int difficulty){ this.difficulty = difficulty; }
+	public void setEndBlockHeight(int endBlockHeight){ this.endBlockHeight = endBlockHeight; }
+	public void setEngineName(String engineName){ this.engineName = engineName; }
+	public void setAlgo(String algo){ this.algo = algo; }
+	public void setThreshold(double threshold){ this.threshold = threshold; }
+	public void setRandomSeed(long randomSeed){
+		this.randomSeed = randomSeed;
+		this.random = new Random(randomSeed);
+	}
+
+	LogicalProcess getMainProcess(){ return this.process; }
+	AbstractPartitionedEngine getEngine(){ return this.engine; }
+	void setEngine(AbstractPartitionedEngine engine){ this.engine = engine; }
+
+	ArrayList<Node> getSimulatedNodes(){ return this.simulatedNodes; }
+	long getTargetInterval(){ return this.targetInterval; }
+	void setTargetInterval(long targetInterval){ this.targetInterval = targetInterval; }
+	PropagationRecorder getPropagation(){ return this.propagation; }
+
+	// the blocks of this run, created with the first block
+	public synchronized BlockStore getBlockStore(){
+		if(this.blockStore == null) this.blockStore = new BlockStore(this.difficulty);
+		return this.blockStore;
+	}
+
+	// the keys of the nodes simulated now, for the XOR distance routing tables
+	public synchronized KeyIndex getKeyIndex(){
+		if(this.keyIndex == null || this.keyIndex.size() != this.simulatedNodes.size()){
+			this.keyIndex = new KeyIndex(this.simulatedNodes, this.getStreamSeed());
+		}
+		return this.keyIndex;
+	}
+
+	// the output file of this run with the given name, created on first use
+	public synchronized PrintWriter getOutput(String name){
+		PrintWriter output = this.outputs.get(name);
+		if(output == null){
+			File file = new File(this.outputDir.resolve("./" + name));
+			file.getParentFile().mkdirs();
+			try {
+				output = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			this.outputs.put(name, output);
+		}
+		return output;
+	}
+
+	// the events of this run, created on first use
+	public synchronized AbstractEventSink getEventSink(){
+		if(this.eventSink == null){
+			AbstractEventSink sink = AbstractEventSink.create(EVENT_SINK, this);
+			this.eventSink = EVENT_BUFFER > 0 ? new AsyncEventSink(sink, EVENT_BUFFER, EVENT_BACKPRESSURE.equals("drop")) : sink;
+		}
+		return this.eventSink;
+	}
+
+	// replaces the configured sink, e.g. to look at the events of the run
+	public synchronized void setEventSink(AbstractEventSink eventSink){ this.eventSink = eventSink; }
+
+	public synchronized void closeOutputs(){
+		if(this.eventSink != null) this.eventSink.close();
+		for(PrintWriter output : this.outputs.values()){
+			output.close();
+		}
+	}
+}
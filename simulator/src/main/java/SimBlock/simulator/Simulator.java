@@ -15,91 +15,56 @@
  */
 package SimBlock.simulator;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Random;
 
 import SimBlock.block.Block;
 import SimBlock.node.Node;
+import SimBlock.node.routingTable.KeyIndex;
+import SimBlock.simulator.eventSink.AbstractEventSink;
 import static SimBlock.simulator.Timer.*;
 
 
+// Static access to the state of the current simulation run, see SimulationContext
 public class Simulator {
-	private static ArrayList<Node> simulatedNodes = new ArrayList<Node>();
-	private static long targetInterval;//msec
+	public static final String OUT_JSON_NAME = "output.json";
+	public static final String STATIC_JSON_NAME = "static.json";
 
-	public static ArrayList<Node> getSimulatedNodes(){ return simulatedNodes; }
-	public static long getTargetInterval(){ return targetInterval; }
-	public static void setTargetInterval(long interval){ targetInterval = interval; }
+	public static ArrayList<Node> getSimulatedNodes(){ return SimulationContext.get().getSimulatedNodes(); }
+	public static long getTargetInterval(){ return SimulationContext.get().getTargetInterval(); }//msec
+	public static void setTargetInterval(long interval){ SimulationContext.get().setTargetInterval(interval); }
+
+	public static Random getRandom(){ return SimulationContext.get().getRandom(); }
+	public static AbstractEventSink getEventSink(){ return SimulationContext.get().getEventSink(); }
+	public static PrintWriter getStaticJsonFile(){ return SimulationContext.get().getOutput(STATIC_JSON_NAME); }
+	public static KeyIndex getKeyIndex(){ return SimulationContext.get().getKeyIndex(); }
 
 
 	public static void addNode(Node node){
-		simulatedNodes.add(node);
+		getSimulatedNodes().add(node);
 	}
 
 	public static void removeNode(Node node){
-		simulatedNodes.remove(node);
+		getSimulatedNodes().remove(node);
 	}
 
 	public static void addNodeWithConnection(Node node){
 		node.joinNetwork();
 		addNode(node);
-		for(Node existingNode: simulatedNodes){
+		for(Node existingNode: getSimulatedNodes()){
 			existingNode.addNeighbor(node);
 		}
 	}
 
-	//
-	// Record block propagation time
-	// For saving memory, Record only the latest 10 Blocks
-	//
-	private static ArrayList<Block> observedBlocks = new ArrayList<Block>();
-	private static ArrayList<LinkedHashMap<Integer, Long>> observedPropagations = new ArrayList<LinkedHashMap<Integer, Long>>();
-
+	// records the arrival of block at node for the propagation statistics
 	public static void arriveBlock(Block block,Node node){
-		if(observedBlocks.contains(block)){
-			LinkedHashMap<Integer, Long> Propagation = observedPropagations.get(observedBlocks.indexOf(block));
-			Propagation.put(node.getNodeID(), getCurrentTime() - block.getTime());
-		}else{
-			if(observedBlocks.size() > 10){
-				printPropagation(observedBlocks.get(0),observedPropagations.get(0));
-				observedBlocks.remove(0);
-				observedPropagations.remove(0);
-			}
-			LinkedHashMap<Integer, Long> propagation = new LinkedHashMap<Integer, Long>();
-			propagation.put(node.getNodeID(), getCurrentTime() - block.getTime());
-			observedBlocks.add(block);
-			observedPropagations.add(propagation);
-		}
-	}
-
-	public static void printPropagation(Block block,LinkedHashMap<Integer, Long> propagation){
-//		System.out.println(block + ":" + block.getHeight());
-		// Added and Modified By Viddi
-		// Display Block List
-//		System.out.println("ID        : " + block.getId());
-//		System.out.println("Nonce     : " + block.getNoncenya());
-//		System.out.println("Hash      : " + block.getHashnya());
-//		System.out.println("PrevHash  : " + block.getPrevHashnya());
-//		System.out.println("TimeStamp : " + block.getTimeStamp());
-//		System.out.println();
-		// End of Added and Modified By Viddi
-
-		// Added and Modified By Viddi
-		// For saving memory, this command below has been disabled By Viddi
-		/*
-			for(Map.Entry<Integer, Long> timeEntry : propagation.entrySet()){
-			System.out.println(timeEntry.getKey() + "," + timeEntry.getValue());
-		}
-		System.out.println();
-		*/
-		// End of Addition and Modified By Viddi
+		SimulationContext context = SimulationContext.get();
+		context.getPropagation().arrive(block.getId(), getCurrentTime() - block.getTime(), context.getSimulatedNodes().size());
 	}
 
-	public static void printAllPropagation(){
-		for(int i=0;i < observedBlocks.size();i++){
-			printPropagation(observedBlocks.get(i), observedPropagations.get(i));
-		}
+	public static void printPropagation(){
+		SimulationContext.get().getPropagation().print(System.out);
 	}
 
 }
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator;
+
+import static SimBlock.settings.SimulationConfiguration.*;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import SimBlock.settings.ConfigurationLoader;
+
+// Runs the cartesian product of parameter values as isolated simulations in one JVM.
+// Usage: SweepRunner [NUM_OF_NODES=10,100] [DIFFICULTY=2,3] [ENDBLOCKHEIGHT=10]
+//                    [POPA_THRESHOLD=0.6,0.68] [RANDOM_SEED=1,2,3] [MAIN=MainPoPA|Main] [WORKERS=n]
+//                    [other NAME=value configuration overrides shared by all runs]
+// Every run writes to output/sweep/<label>/ and one line to output/sweep/summary.csv.
+public class SweepRunner {
+	private static final List<String> SWEEP_KEYS = Arrays.asList(
+		"NUM_OF_NODES", "DIFFICULTY", "ENDBLOCKHEIGHT", "POPA_THRESHOLD", "RANDOM_SEED", "MAIN", "WORKERS");
+
+	private static class Run {
+		private final String label;
+		private final SimulationContext context;
+
+		private Run(String label, SimulationContext context){
+			this.label = label;
+			this.context = context;
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException, ExecutionException {
+		Map<String,String[]> values = new HashMap<String,String[]>();
+		List<String> overrides = new ArrayList<String>();
+		for(String arg : args){
+			int eq = arg.indexOf('=');
+			if(eq < 0) throw new IllegalArgumentException("Expected NAME=v1,v2,... but got " + arg);
+			if(SWEEP_KEYS.contains(arg.substring(0, eq))){
+				values.put(arg.substring(0, eq), arg.substring(eq + 1).split(","));
+			}else{
+				overrides.add(arg);
+			}
+		}
+		ConfigurationLoader.setArguments(overrides.toArray(new String[0]));
+		boolean popa = !get(values, "MAIN", "MainPoPA")[0].equals("Main");
+		int workers = Integer.parseInt(get(values, "WORKERS", String.valueOf(NUM_OF_WORKERS))[0]);
+
+		List<Run> runs = new ArrayList<Run>();
+		for(String numOfNodes : get(values, "NUM_OF_NODES", String.valueOf(NUM_OF_NODES))){
+			for(String difficulty : get(values, "DIFFICULTY", String.valueOf(DIFFICULTY))){
+				for(String endBlockHeight : get(values, "ENDBLOCKHEIGHT", String.valueOf(ENDBLOCKHEIGHT))){
+					for(String threshold : get(values, "POPA_THRESHOLD", String.valueOf(POPA_THRESHOLD))){
+						for(String seed : get(values, "RANDOM_SEED", String.valueOf(RANDOM_SEED))){
+							String label = "n" + numOfNodes + "-d" + difficulty + "-h" + endBlockHeight + "-t" + threshold + "-s" + seed;
+							SimulationContext context = new SimulationContext(Main.OUT_FILE_URI.resolve("./sweep/" + label + "/"));
+							context.setNumOfNodes(Integer.parseInt(numOfNodes));
+							context.setDifficulty(Integer.parseInt(difficulty));
+							context.setEndBlockHeight(Integer.parseInt(endBlockHeight));
+							context.setThreshold(Double.parseDouble(threshold));
+							context.setRandomSeed(Long.parseLong(seed));
+							runs.add(new Run(label, context));
+						}
+					}
+				}
+			}
+		}
+
+		// simulations are CPU bound, so a pool of one thread per core is enough
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, workers));
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		for(Run run : runs){
+			results.add(pool.submit(() -> runOne(run, popa)));
+		}
+		pool.shutdown();
+
+		SimulationContext summary = new SimulationContext(Main.OUT_FILE_URI.resolve("./sweep/"));
+		PrintWriter csv = summary.getOutput("summary.csv");
+		csv.println("label,nodes,difficulty,end-block-height,threshold,seed,result,duration-ms");
+		for(Future<String> result : results){
+			csv.println(result.get());
+		}
+		summary.closeOutputs();
+	}
+
+	private static String[] get(Map<String,String[]> values, String name, String defaultValue){
+		String[] value = values.get(name);
+		return value != null ? value : new String[]{ defaultValue };
+	}
+
+	// result is the number of mined blocks for MainPoPA and the chain height for Main
+	private static String runOne(Run run, boolean popa){
+		SimulationContext context = run.context;
+		long start = System.currentTimeMillis();
+		String[] result = new String[1];
+		try {
+			context.run(() -> {
+				if(popa){
+					result[0] = String.valueOf(MainPoPA.run());
+				}else{
+					Main.run();
+					result[0] = String.valueOf(context.getSimulatedNodes().get(0).getBlock().getHeight());
+				}
+			});
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			result[0] = "error";
+		} finally {
+			context.closeOutputs();
+		}
+		return run.label + "," + context.getNumOfNodes() + "," + context.getDifficulty() + "," + context.getEndBlockHeight() + ","
+			+ context.getThreshold() + "," + context.getRandomSeed() + "," + result[0] + "," + (System.currentTimeMillis() - start);
+	}
+}
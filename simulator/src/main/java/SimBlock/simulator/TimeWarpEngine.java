@@ -0,0 +1,128 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Predicate;
+
+import SimBlock.simulator.taskQueue.ScheduledTask;
+import SimBlock.task.Task;
+
+// Optimistic (Time Warp) parallel engine. The processes run ahead without waiting
+// for each other and roll back when a straggler arrives. The engine works in rounds:
+// every process runs up to batchSize tasks no later than GVT + window, then all
+// messages are delivered, the global virtual time (GVT) is computed and the tasks
+// before it are committed: their output is written and their snapshots are dropped.
+public class TimeWarpEngine extends AbstractPartitionedEngine {
+	// how often a running process looks for stragglers, in tasks
+	private static final int POLL_INTERVAL = 16;
+
+	private final long window;
+	private final int batchSize;
+
+	public TimeWarpEngine(int numOfWorkers, long window, int batchSize){
+		super(numOfWorkers);
+		this.window = window;
+		this.batchSize = batchSize;
+	}
+
+	protected LogicalProcess createProcess(int id, int numOfProcesses){
+		return new TimeWarpProcess(id, numOfProcesses);
+	}
+
+	public long getRollbacks(){
+		long rollbacks = 0;
+		for(LogicalProcess lp : this.processes){
+			rollbacks += ((TimeWarpProcess) lp).getRollbacks();
+		}
+		return rollbacks;
+	}
+
+	protected void simulate(ExecutorService workers, Predicate<Task> isEnd) throws InterruptedException, ExecutionException {
+		ScheduledTask gvt;
+		while(true){
+			this.deliverAll();
+			// nothing is in transit now, so GVT is the earliest pending task
+			gvt = null;
+			for(LogicalProcess lp : this.processes){
+				ScheduledTask next = lp.peek();
+				if(next != null && (gvt == null || next.compareTo(gvt) < 0)) gvt = next;
+			}
+			this.fossilCollect(gvt);
+			if(gvt == null || isEnd.test(gvt.getTask())) break;
+
+			long limit = gvt.getScheduledTime() + this.window;
+			List<Callable<Boolean>> rounds = new ArrayList<Callable<Boolean>>();
+			for(LogicalProcess lp : this.processes){
+				if(lp.size() > 0) rounds.add(() -> this.runOptimistically((TimeWarpProcess) lp, limit, isEnd));
+			}
+			invokeAll(workers, rounds);
+		}
+		// undo what was executed speculatively beyond the end
+		if(gvt != null){
+			for(LogicalProcess lp : this.processes){
+				((TimeWarpProcess) lp).rollback(gvt, true);
+			}
+			this.deliverAll();
+		}
+	}
+
+	// delivers messages until no rollback produces further anti-messages
+	private void deliverAll(){
+		boolean received;
+		do {
+			received = false;
+			for(LogicalProcess lp : this.processes){
+				received |= lp.receiveAll();
+			}
+		} while(received);
+	}
+
+	// commits the tasks before bound in timestamp order, with the clock set to each task's time
+	private void fossilCollect(ScheduledTask bound){
+		PriorityQueue<TimeWarpProcess.ProcessedTask> committed = new PriorityQueue<TimeWarpProcess.ProcessedTask>(
+			(a, b) -> a.getScheduledTask().compareTo(b.getScheduledTask()));
+		for(LogicalProcess lp : this.processes){
+			committed.addAll(((TimeWarpProcess) lp).fossilCollect(bound));
+		}
+		LogicalProcess main = Timer.getMainProcess();
+		TimeWarpProcess.ProcessedTask record;
+		while((record = committed.poll()) != null){
+			main.setCurrentTime(record.getScheduledTask().getScheduledTime());
+			record.commit();
+		}
+	}
+
+	private boolean runOptimistically(TimeWarpProcess lp, long limit, Predicate<Task> isEnd){
+		Timer.setCurrentProcess(lp);
+		try {
+			for(int n = 0; n < this.batchSize; n++){
+				if(n % POLL_INTERVAL == 0) lp.receiveAll();
+				ScheduledTask next = lp.peek();
+				if(next == null || next.getScheduledTime() >= limit || isEnd.test(next.getTask())) break;
+				lp.run(lp.poll());
+			}
+			return false;
+		} finally {
+			Timer.setCurrentProcess(null);
+		}
+	}
+}
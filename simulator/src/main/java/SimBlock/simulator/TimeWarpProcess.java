@@ -0,0 +1,205 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import SimBlock.node.Node;
+import SimBlock.simulator.taskQueue.ScheduledTask;
+import SimBlock.task.Task;
+
+// Logical process of the optimistic engine. Tasks are executed as soon as they are
+// known; every executed task keeps a snapshot of its node, the tasks it sent or
+// cancelled and its deferred output, so it can be undone when a straggler (a task
+// earlier than the local clock) or an anti-message arrives.
+class TimeWarpProcess extends LogicalProcess {
+
+	private static class Message {
+		private final ScheduledTask stask;
+		private final boolean anti;
+
+		private Message(ScheduledTask stask, boolean anti){
+			this.stask = stask;
+			this.anti = anti;
+		}
+	}
+
+	static class ProcessedTask {
+		private final ScheduledTask stask;
+		private final Node owner;
+		private final Node.Snapshot snapshot;
+		private final List<ScheduledTask> sent = new ArrayList<ScheduledTask>();
+		private final List<TimeWarpProcess> destinations = new ArrayList<TimeWarpProcess>();
+		private final List<ScheduledTask> cancelled = new ArrayList<ScheduledTask>();
+		private final List<Runnable> commits = new ArrayList<Runnable>();
+
+		private ProcessedTask(ScheduledTask stask, Node owner){
+			this.stask = stask;
+			this.owner = owner;
+			this.snapshot = owner == null ? null : owner.saveState();
+		}
+
+		ScheduledTask getScheduledTask(){ return this.stask; }
+
+		void commit(){
+			for(Runnable action : this.commits){
+				action.run();
+			}
+		}
+	}
+
+	// FIFO per sender, so an anti-message never overtakes its positive message
+	private final Queue<Message> messages = new ConcurrentLinkedQueue<Message>();
+	// executed but not yet committed tasks, in execution (= timestamp) order
+	private final ArrayList<ProcessedTask> processed = new ArrayList<ProcessedTask>();
+	private ProcessedTask executing = null;
+	// time of the last committed task, which can no longer be rolled back
+	private long committedTime = 0L;
+	private long rollbacks = 0;
+
+	TimeWarpProcess(int id, int numOfProcesses){
+		super(id, numOfProcesses);
+	}
+
+	long getRollbacks(){ return this.rollbacks; }
+
+	@Override
+	void schedule(ScheduledTask stask, LogicalProcess destination){
+		TimeWarpProcess to = (TimeWarpProcess) destination;
+		if(this.executing != null){
+			this.executing.sent.add(stask);
+			this.executing.destinations.add(to);
+		}
+		if(to == this){
+			// rollback and fossilCollect need the executed tasks in order. A local task always
+			// sorts after the running one (see LogicalProcess.newScheduledTask), so it can never
+			// be a straggler; one that would be cannot be undone safely while its sender runs.
+			int last = this.processed.size() - 1;
+			if(last >= 0 && stask.compareTo(this.processed.get(last).stask) < 0){
+				throw new IllegalStateException("Causality error: local task for " + stask.getScheduledTime() + " sorts before executed work");
+			}
+			this.add(stask);
+		}else{
+			to.messages.add(new Message(stask, false));
+		}
+	}
+
+	@Override
+	boolean removeTask(Task task){
+		ScheduledTask stask = this.taskMap.get(task);
+		if(stask == null || !this.taskQueue.remove(stask)) return false;
+		this.taskMap.remove(task, stask);
+		if(this.executing != null){
+			this.executing.cancelled.add(stask);
+		}
+		return true;
+	}
+
+	@Override
+	void onCommit(Runnable action){
+		if(this.executing != null){
+			this.executing.commits.add(action);
+		}else{
+			action.run();
+		}
+	}
+
+	@Override
+	void run(ScheduledTask stask){
+		ProcessedTask record = new ProcessedTask(stask, AbstractPartitionedEngine.ownerOf(stask.getTask()));
+		this.executing = record;
+		try {
+			super.run(stask);
+		} finally {
+			this.executing = null;
+		}
+		this.processed.add(record);
+	}
+
+	@Override
+	boolean receiveAll(){
+		boolean received = false;
+		Message message;
+		while((message = this.messages.poll()) != null){
+			received = true;
+			ScheduledTask stask = message.stask;
+			if(message.anti){
+				if(!this.taskQueue.remove(stask)){
+					// already executed: undo it and everything after it
+					this.rollback(stask, true);
+					this.taskQueue.remove(stask);
+				}
+				this.taskMap.remove(stask.getTask(), stask);
+			}else{
+				this.rollback(stask, false);
+				this.add(stask);
+			}
+		}
+		return received;
+	}
+
+	// undoes the executed tasks later than stask (and stask itself if inclusive)
+	void rollback(ScheduledTask stask, boolean inclusive){
+		int last = this.processed.size() - 1;
+		if(last < 0) return;
+		int order = this.processed.get(last).stask.compareTo(stask);
+		if(order < 0 || (order == 0 && !inclusive)) return;
+		this.rollbacks++;
+		while(last >= 0){
+			ProcessedTask record = this.processed.get(last);
+			order = record.stask.compareTo(stask);
+			if(order < 0 || (order == 0 && !inclusive)) break;
+			this.undo(record);
+			this.processed.remove(last--);
+		}
+		this.setCurrentTime(last >= 0 ? this.processed.get(last).stask.getScheduledTime() : this.committedTime);
+	}
+
+	private void undo(ProcessedTask record){
+		if(record.owner != null){
+			record.owner.restoreState(record.snapshot);
+		}
+		// restore cancelled tasks first: a task both sent and cancelled by this record must end up removed
+		for(ScheduledTask cancelled : record.cancelled){
+			this.add(cancelled);
+		}
+		for(int i = record.sent.size() - 1; i >= 0; i--){
+			ScheduledTask sent = record.sent.get(i);
+			TimeWarpProcess to = record.destinations.get(i);
+			if(to == this){
+				// later local tasks are already undone, so this one is still pending
+				this.taskQueue.remove(sent);
+				this.taskMap.remove(sent.getTask(), sent);
+			}else{
+				to.messages.add(new Message(sent, true));
+			}
+		}
+		this.add(record.stask);
+	}
+
+	// removes and returns the executed tasks earlier than bound; they can no longer be rolled back
+	List<ProcessedTask> fossilCollect(ScheduledTask bound){
+		int n = 0;
+		while(n < this.processed.size() && (bound == null || this.processed.get(n).stask.compareTo(bound) < 0)) n++;
+		List<ProcessedTask> committed = new ArrayList<ProcessedTask>(this.processed.subList(0, n));
+		if(n > 0) this.committedTime = this.processed.get(n - 1).stask.getScheduledTime();
+		this.processed.subList(0, n).clear();
+		return committed;
+	}
+}
@@ -15,78 +15,55 @@
  */
 package SimBlock.simulator;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.PriorityQueue;
-
+import SimBlock.simulator.taskQueue.ScheduledTask;
 import SimBlock.task.Task;
 
 
 public class Timer {
 	
-	private static PriorityQueue<ScheduledTask> taskQueue = new PriorityQueue<ScheduledTask>();
-	private static Map<Task,ScheduledTask> taskMap = new HashMap<Task,ScheduledTask>();
-	private static long currentTime = 0L;
-	
-	private static class ScheduledTask implements Comparable<ScheduledTask> {
-		private final Task task;
-		private final long scheduledTime;
-		
-		private ScheduledTask(Task task, long scheduledTime){
-			this.task = task;
-			this.scheduledTime = scheduledTime;
-		}
-		
-		private Task getTask(){ return this.task; }
-		private long getScheduledTime(){ return this.scheduledTime; }
-		
-		public int compareTo(ScheduledTask o) {
-			if(this.equals(o)) return 0;
-			int order = Long.signum(this.scheduledTime - o.scheduledTime);
-			if(order != 0) return order;
-			order = System.identityHashCode(this) - System.identityHashCode(o);
-			return order;
-		}
+	// set while a partitioned engine runs; each worker thread then executes one logical process at a time
+	private static final ThreadLocal<LogicalProcess> currentProcess = new ThreadLocal<LogicalProcess>();
+
+	private static LogicalProcess current(){
+		LogicalProcess lp = currentProcess.get();
+		return lp != null ? lp : SimulationContext.get().getMainProcess();
 	}
-	
+
 	public static void runTask(){
-		if(taskQueue.size() > 0){
-			ScheduledTask currentScheduledTask = taskQueue.poll();
-			Task currentTask = currentScheduledTask.getTask();
-			currentTime = currentScheduledTask.getScheduledTime();
-			taskMap.remove(currentTask, currentScheduledTask);
-			currentTask.run();
+		LogicalProcess lp = current();
+		ScheduledTask currentScheduledTask = lp.poll();
+		if(currentScheduledTask != null){
+			lp.run(currentScheduledTask);
 		}
 	}
 
 	public static void removeTask(Task task){
-		if(taskMap.containsKey(task)){
-			ScheduledTask stask = taskMap.get(task);
-			taskQueue.remove(stask);
-			taskMap.remove(task, stask);
-		}
+		current().removeTask(task);
 	}
 	
 	public static Task getTask(){
-		if(taskQueue.size() > 0){
-			ScheduledTask currentTask = taskQueue.peek();
-			return currentTask.getTask();
-		}else{
-			return null;
-		}
+		ScheduledTask currentTask = current().peek();
+		return currentTask != null ? currentTask.getTask() : null;
 	}
 	
 	public static void putTask(Task task){
-		ScheduledTask stask = new ScheduledTask(task, currentTime + task.getInterval());
-		taskMap.put(task,stask);
-		taskQueue.add(stask);
+		putTaskAbsoluteTime(task, getCurrentTime() + task.getInterval());
 	}
 	
 	public static void putTaskAbsoluteTime(Task task,long time){
-		ScheduledTask stask = new ScheduledTask(task, time);
-		taskMap.put(task,stask);
-		taskQueue.add(stask);
+		LogicalProcess lp = current();
+		AbstractPartitionedEngine engine = SimulationContext.get().getEngine();
+		LogicalProcess destination = engine == null ? lp : engine.getProcess(task, lp);
+		lp.schedule(lp.newScheduledTask(task, time), destination);
 	}
 	
-	public static long getCurrentTime(){return currentTime;}
+	public static long getCurrentTime(){return current().getCurrentTime();}
+
+	// runs an action that must not be undone, e.g. writing output. The optimistic engine
+	// delays it until the current task can no longer be rolled back.
+	public static void onCommit(Runnable action){ current().onCommit(action); }
+
+	static LogicalProcess getMainProcess(){ return SimulationContext.get().getMainProcess(); }
+	static void setEngine(AbstractPartitionedEngine partitionedEngine){ SimulationContext.get().setEngine(partitionedEngine); }
+	static void setCurrentProcess(LogicalProcess lp){ currentProcess.set(lp); }
 }
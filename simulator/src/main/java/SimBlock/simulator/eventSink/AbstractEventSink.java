@@ -0,0 +1,40 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator.eventSink;
+
+import SimBlock.simulator.SimulationContext;
+
+// Receives the events the visualizer replays (output.json) and writes them in its
+// own format. Events arrive in commit order; an implementation buffers them and only
+// has to have written everything once close returns.
+public abstract class AbstractEventSink {
+	public abstract void addNode(long time, int nodeId, int regionId);
+	public abstract void addLink(long time, int beginNodeId, int endNodeId);
+	public abstract void removeLink(long time, int beginNodeId, int endNodeId);
+	// block 0 is the genesis block
+	public abstract void addBlock(long time, int nodeId, int blockId, String prevHash, int nonce, String hash);
+	public abstract void flowBlock(long transmissionTime, long receptionTime, int beginNodeId, int endNodeId, int blockId);
+	public abstract void simulationEnd(long time);
+	public abstract void close();
+
+	public static AbstractEventSink create(String eventSinkName, SimulationContext context){
+		try {
+			return (AbstractEventSink) Class.forName(eventSinkName).getConstructor(SimulationContext.class).newInstance(context);
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unknown event sink: " + eventSinkName, e);
+		}
+	}
+}
@@ -0,0 +1,254 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator.eventSink;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Hands events to a background thread that passes them on to another sink, so the
+// simulation does not wait for formatting and I/O. Events go through a ring of
+// preallocated records with one writer and one reader: the simulation publishes a
+// record by advancing tail, the background thread frees it by advancing head.
+// Simulation threads take turns as the single writer (under the sink's monitor,
+// uncontended with the sequential engine); the background thread takes no lock.
+// When the ring is full the simulation waits, or with drop the event is discarded
+// and counted. simulation-end is never dropped, and close writes out every record
+// published before it; a shutdown hook closes the sink if the run ends abnormally.
+// If simulationEnd was not called by then, e.g. because a task threw or the run was
+// interrupted, close adds a simulation-end at the latest time of any event, so the
+// output is always complete.
+public class AsyncEventSink extends AbstractEventSink {
+	// how long the threads sleep when there is nothing to do / no room
+	private static final long PARK_NANOS = 50 * 1000;
+
+	private static final class Record {
+		private byte kind;
+		private long time1;
+		private long time2;
+		private int int1;
+		private int int2;
+		private int int3;
+		private String prevHash;
+		private String hash;
+	}
+
+	private final AbstractEventSink sink;
+	private final boolean drop;
+	private final Record[] ring;
+	private final int mask;
+	// next record to write out / next record to fill, both only ever increase
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final Thread writer;
+	private final Thread shutdownHook;
+	private volatile boolean closed = false;
+	// guarded by the sink's monitor
+	private long lastTime = 0;
+	private boolean ended = false;
+	private volatile Throwable failure = null;
+
+	public AsyncEventSink(AbstractEventSink sink, int capacity, boolean drop){
+		this.sink = sink;
+		this.drop = drop;
+		int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+		this.ring = new Record[size];
+		for(int i = 0; i < size; i++){
+			this.ring[i] = new Record();
+		}
+		this.mask = size - 1;
+		this.writer = new Thread(this::drain, "event-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+		this.shutdownHook = new Thread(this::close);
+		Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+	}
+
+	public long getDropped(){ return this.dropped.get(); }
+
+	public synchronized void addNode(long time, int nodeId, int regionId){
+		this.lastTime = Math.max(this.lastTime, time);
+		Record record = this.claim(false);
+		if(record == null) return;
+		record.kind = BinaryEventSink.ADD_NODE;
+		record.time1 = time;
+		record.int1 = nodeId;
+		record.int2 = regionId;
+		this.publish();
+	}
+
+	public synchronized void addLink(long time, int beginNodeId, int endNodeId){
+		this.lastTime = Math.max(this.lastTime, time);
+		Record record = this.claim(false);
+		if(record == null) return;
+		record.kind = BinaryEventSink.ADD_LINK;
+		record.time1 = time;
+		record.int1 = beginNodeId;
+		record.int2 = endNodeId;
+		this.publish();
+	}
+
+	public synchronized void removeLink(long time, int beginNodeId, int endNodeId){
+		this.lastTime = Math.max(this.lastTime, time);
+		Record record = this.claim(false);
+		if(record == null) return;
+		record.kind = BinaryEventSink.REMOVE_LINK;
+		record.time1 = time;
+		record.int1 = beginNodeId;
+		record.int2 = endNodeId;
+		this.publish();
+	}
+
+	public synchronized void addBlock(long time, int nodeId, int blockId, String prevHash, int nonce, String hash){
+		this.lastTime = Math.max(this.lastTime, time);
+		Record record = this.claim(false);
+		if(record == null) return;
+		record.kind = BinaryEventSink.ADD_BLOCK;
+		record.time1 = time;
+		record.int1 = nodeId;
+		record.int2 = blockId;
+		record.int3 = nonce;
+		record.prevHash = prevHash;
+		record.hash = hash;
+		this.publish();
+	}
+
+	public synchronized void flowBlock(long transmissionTime, long receptionTime, int beginNodeId, int endNodeId, int blockId){
+		this.lastTime = Math.max(this.lastTime, receptionTime);
+		Record record = this.claim(false);
+		if(record == null) return;
+		record.kind = BinaryEventSink.FLOW_BLOCK;
+		record.time1 = transmissionTime;
+		record.time2 = receptionTime;
+		record.int1 = beginNodeId;
+		record.int2 = endNodeId;
+		record.int3 = blockId;
+		this.publish();
+	}
+
+	public synchronized void simulationEnd(long time){
+		this.ended = true;
+		Record record = this.claim(true);
+		record.kind = BinaryEventSink.SIMULATION_END;
+		record.time1 = time;
+		this.publish();
+	}
+
+	// waits for the writer to catch up, then closes the sink behind it
+	public void close(){
+		synchronized(this){
+			if(this.closed) return;
+			if(!this.ended) this.simulationEnd(this.lastTime);
+			this.closed = true;
+		}
+		LockSupport.unpark(this.writer);
+		try {
+			this.writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+		} catch (IllegalStateException e) {
+			// already shutting down
+		}
+		if(this.dropped.get() > 0){
+			System.out.println("[EVENTS] dropped " + this.dropped.get() + " events, the event buffer was full");
+		}
+		this.checkFailure();
+	}
+
+	// the next free record, or null if it is full and events may be dropped
+	private Record claim(boolean keep){
+		this.checkFailure();
+		if(this.closed) throw new IllegalStateException("The event sink is closed");
+		long tail = this.tail.get();
+		while(tail - this.head.get() >= this.ring.length){
+			if(this.drop && !keep){
+				this.dropped.incrementAndGet();
+				return null;
+			}
+			LockSupport.unpark(this.writer);
+			LockSupport.parkNanos(PARK_NANOS);
+			this.checkFailure();
+		}
+		return this.ring[(int) tail & this.mask];
+	}
+
+	private void publish(){
+		// ordered store: the record's fields are visible to the writer before the new tail
+		this.tail.lazySet(this.tail.get() + 1);
+	}
+
+	private void drain(){
+		try {
+			long head = this.head.get();
+			while(true){
+				long tail = this.tail.get();
+				if(head == tail){
+					if(this.closed && this.tail.get() == head) break;
+					LockSupport.parkNanos(PARK_NANOS);
+					continue;
+				}
+				for(; head < tail; head++){
+					Record record = this.ring[(int) head & this.mask];
+					this.write(record);
+					record.prevHash = null;
+					record.hash = null;
+					this.head.lazySet(head + 1);
+				}
+			}
+		} catch (Throwable e) {
+			this.failure = e;
+		} finally {
+			try {
+				this.sink.close();
+			} catch (Throwable e) {
+				if(this.failure == null) this.failure = e;
+			}
+		}
+	}
+
+	private void write(Record record){
+		switch(record.kind){
+			case BinaryEventSink.ADD_NODE:
+				this.sink.addNode(record.time1, record.int1, record.int2);
+				break;
+			case BinaryEventSink.ADD_LINK:
+				this.sink.addLink(record.time1, record.int1, record.int2);
+				break;
+			case BinaryEventSink.REMOVE_LINK:
+				this.sink.removeLink(record.time1, record.int1, record.int2);
+				break;
+			case BinaryEventSink.ADD_BLOCK:
+				this.sink.addBlock(record.time1, record.int1, record.int2, record.prevHash, record.int3, record.hash);
+				break;
+			case BinaryEventSink.FLOW_BLOCK:
+				this.sink.flowBlock(record.time1, record.time2, record.int1, record.int2, record.int3);
+				break;
+			case BinaryEventSink.SIMULATION_END:
+				this.sink.simulationEnd(record.time1);
+				break;
+		}
+	}
+
+	private void checkFailure(){
+		Throwable failure = this.failure;
+		if(failure instanceof RuntimeException) throw (RuntimeException) failure;
+		if(failure instanceof Error) throw (Error) failure;
+		if(failure != null) throw new RuntimeException(failure);
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator.eventSink;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import SimBlock.simulator.SimulationContext;
+
+// output.bin: a header followed by one fixed-width record per event, a kind byte and
+// big-endian fields. Hashes are stored as 32 raw bytes instead of 64 hex digits, so an
+// add-block record takes 86 bytes instead of about 300. Records are collected in a
+// large direct buffer that is written out only when full. BinaryLogConverter turns
+// the file into the output.json the visualizer reads.
+public class BinaryEventSink extends AbstractEventSink {
+	public static final String OUT_BIN_NAME = "output.bin";
+
+	static final int MAGIC = 0x53424556; // "SBEV"
+	static final int VERSION = 1;
+
+	static final byte ADD_NODE = 1; // time, node, region
+	static final byte ADD_LINK = 2; // time, begin node, end node
+	static final byte REMOVE_LINK = 3; // time, begin node, end node
+	static final byte ADD_BLOCK = 4; // time, node, block, nonce, flags, previous hash, hash
+	static final byte FLOW_BLOCK = 5; // transmission time, reception time, begin node, end node, block
+	static final byte SIMULATION_END = 6; // time
+
+	// flag of an add-block record whose previous hash is "0", i.e. the genesis block
+	static final byte NO_PREV_HASH = 1;
+	static final int HASH_BYTES = 32;
+
+	private static final int BUFFER_SIZE = 1 << 20;
+	// the largest record, an add-block
+	private static final int MAX_RECORD = 1 + 8 + 4 + 4 + 4 + 1 + 2 * HASH_BYTES;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	public BinaryEventSink(SimulationContext context){
+		File file = new File(context.getOutputDir().resolve("./" + OUT_BIN_NAME));
+		file.getParentFile().mkdirs();
+		try {
+			this.channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.buffer.putInt(MAGIC).putInt(VERSION);
+	}
+
+	public synchronized void addNode(long time, int nodeId, int regionId){
+		this.reserve().put(ADD_NODE).putLong(time).putInt(nodeId).putInt(regionId);
+	}
+
+	public synchronized void addLink(long time, int beginNodeId, int endNodeId){
+		this.reserve().put(ADD_LINK).putLong(time).putInt(beginNodeId).putInt(endNodeId);
+	}
+
+	public synchronized void removeLink(long time, int beginNodeId, int endNodeId){
+		this.reserve().put(REMOVE_LINK).putLong(time).putInt(beginNodeId).putInt(endNodeId);
+	}
+
+	public synchronized void addBlock(long time, int nodeId, int blockId, String prevHash, int nonce, String hash){
+		boolean noPrevHash = prevHash.equals("0");
+		this.reserve().put(ADD_BLOCK).putLong(time).putInt(nodeId).putInt(blockId).putInt(nonce);
+		this.buffer.put(noPrevHash ? NO_PREV_HASH : 0);
+		putHash(this.buffer, noPrevHash ? null : prevHash);
+		putHash(this.buffer, hash);
+	}
+
+	public synchronized void flowBlock(long transmissionTime, long receptionTime, int beginNodeId, int endNodeId, int blockId){
+		this.reserve().put(FLOW_BLOCK).putLong(transmissionTime).putLong(receptionTime).putInt(beginNodeId).putInt(endNodeId).putInt(blockId);
+	}
+
+	public synchronized void simulationEnd(long time){
+		this.reserve().put(SIMULATION_END).putLong(time);
+	}
+
+	public synchronized void close(){
+		try {
+			this.drain();
+			this.channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// the buffer, with room for one more record
+	private ByteBuffer reserve(){
+		if(this.buffer.remaining() < MAX_RECORD){
+			try {
+				this.drain();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return this.buffer;
+	}
+
+	private void drain() throws IOException {
+		this.buffer.flip();
+		while(this.buffer.hasRemaining()){
+			this.channel.write(this.buffer);
+		}
+		this.buffer.clear();
+	}
+
+	// 64 hex digits as 32 bytes; null as zeros
+	private static void putHash(ByteBuffer buffer, String hash){
+		if(hash == null){
+			for(int i = 0; i < HASH_BYTES; i++) buffer.put((byte) 0);
+			return;
+		}
+		if(hash.length() != 2 * HASH_BYTES){
+			throw new IllegalArgumentException("Expected " + 2 * HASH_BYTES + " hex digits but got " + hash);
+		}
+		for(int i = 0; i < HASH_BYTES; i++){
+			buffer.put((byte) (digit(hash, 2 * i) << 4 | digit(hash, 2 * i + 1)));
+		}
+	}
+
+	private static int digit(String hash, int index){
+		int digit = Character.digit(hash.charAt(index), 16);
+		if(digit < 0) throw new IllegalArgumentException("Expected hex digits but got " + hash);
+		return digit;
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator.eventSink;
+
+import static SimBlock.simulator.eventSink.BinaryEventSink.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import SimBlock.simulator.Main;
+import SimBlock.simulator.Simulator;
+
+// Converts output.bin written by BinaryEventSink to the output.json of JsonEventSink.
+// Usage: BinaryLogConverter [input.bin [output.json]], by default in the output directory.
+public class BinaryLogConverter {
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	public static void main(String[] args) throws IOException {
+		File input = args.length > 0 ? new File(args[0]) : new File(Main.OUT_FILE_URI.resolve("./" + OUT_BIN_NAME));
+		File output = args.length > 1 ? new File(args[1]) : new File(Main.OUT_FILE_URI.resolve("./" + Simulator.OUT_JSON_NAME));
+		convert(input, output);
+	}
+
+	public static void convert(File input, File output) throws IOException {
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(input), 1 << 16))){
+			if(in.readInt() != MAGIC) throw new IOException(input + " is not an event log");
+			int version = in.readInt();
+			if(version != VERSION) throw new IOException(input + " has version " + version + ", expected " + VERSION);
+			JsonEventSink sink = new JsonEventSink(new PrintWriter(new BufferedWriter(new FileWriter(output), 1 << 16)));
+			try {
+				copy(in, sink);
+			} finally {
+				sink.close();
+			}
+		}
+	}
+
+	private static void copy(DataInputStream in, AbstractEventSink sink) throws IOException {
+		byte[] hash = new byte[HASH_BYTES];
+		while(true){
+			int kind = in.read();
+			switch(kind){
+				case -1:
+					return;
+				case ADD_NODE:
+					sink.addNode(in.readLong(), in.readInt(), in.readInt());
+					break;
+				case ADD_LINK:
+					sink.addLink(in.readLong(), in.readInt(), in.readInt());
+					break;
+				case REMOVE_LINK:
+					sink.removeLink(in.readLong(), in.readInt(), in.readInt());
+					break;
+				case ADD_BLOCK:
+					long time = in.readLong();
+					int nodeId = in.readInt();
+					int blockId = in.readInt();
+					int nonce = in.readInt();
+					byte flags = in.readByte();
+					in.readFully(hash);
+					String prevHash = (flags & NO_PREV_HASH) != 0 ? "0" : toHex(hash);
+					in.readFully(hash);
+					sink.addBlock(time, nodeId, blockId, prevHash, nonce, toHex(hash));
+					break;
+				case FLOW_BLOCK:
+					sink.flowBlock(in.readLong(), in.readLong(), in.readInt(), in.readInt(), in.readInt());
+					break;
+				case SIMULATION_END:
+					sink.simulationEnd(in.readLong());
+					break;
+				default:
+					throw new IOException("Unknown record kind " + kind);
+			}
+		}
+	}
+
+	private static String toHex(byte[] hash){
+		char[] hex = new char[hash.length * 2];
+		for(int i = 0; i < hash.length; i++){
+			hex[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+			hex[2 * i + 1] = HEX[hash[i] & 0xf];
+		}
+		return new String(hex);
+	}
+}
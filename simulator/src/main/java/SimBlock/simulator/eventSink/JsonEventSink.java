@@ -0,0 +1,107 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator.eventSink;
+
+import java.io.PrintWriter;
+
+import SimBlock.simulator.Simulator;
+import SimBlock.simulator.SimulationContext;
+
+// output.json for the visualizer. Every event is built in one reused buffer and
+// appended to the buffered writer, which is flushed when it is full or closed
+// rather than after every event.
+public class JsonEventSink extends AbstractEventSink {
+	private final PrintWriter out;
+	private final StringBuilder event = new StringBuilder(512);
+
+	public JsonEventSink(SimulationContext context){
+		this(context.getOutput(Simulator.OUT_JSON_NAME));
+	}
+
+	public JsonEventSink(PrintWriter out){
+		this.out = out;
+		this.out.print("[");
+	}
+
+	public synchronized void addNode(long time, int nodeId, int regionId){
+		this.begin("add-node");
+		this.event.append("\"timestamp-awal\":").append(time).append(',');
+		this.event.append("\"node-id\":").append(nodeId).append(',');
+		this.event.append("\"region-id\":").append(regionId);
+		this.end();
+	}
+
+	public synchronized void addLink(long time, int beginNodeId, int endNodeId){
+		this.begin("add-link");
+		this.event.append("\"timestamp-start\":").append(time).append(',');
+		this.event.append("\"begin-node-id\":").append(beginNodeId).append(',');
+		this.event.append("\"end-node-id\":").append(endNodeId).append(',');
+		this.event.append("\"timestamp-stop\":").append(time);
+		this.end();
+	}
+
+	public synchronized void removeLink(long time, int beginNodeId, int endNodeId){
+		this.begin("remove-link");
+		this.event.append("\"timestamp\":").append(time).append(',');
+		this.event.append("\"begin-node-id\":").append(beginNodeId).append(',');
+		this.event.append("\"end-node-id\":").append(endNodeId);
+		this.end();
+	}
+
+	public synchronized void addBlock(long time, int nodeId, int blockId, String prevHash, int nonce, String hash){
+		this.begin("add-block");
+		this.event.append("\"block-Type\":\"").append(blockId == 0 ? "Genesis Block" : "Chain Block").append("\",");
+		this.event.append("\"timestamp\":").append(time).append(',');
+		this.event.append("\"node-id\":").append(nodeId).append(',');
+		this.event.append("\"block-id\":").append(blockId).append(',');
+		this.event.append("\"prev-Hash\":\"").append(prevHash).append("\",");
+		this.event.append("\"nonce\":").append(nonce).append(',');
+		this.event.append("\"hash-Value\":\"").append(hash).append('"');
+		this.end();
+	}
+
+	public synchronized void flowBlock(long transmissionTime, long receptionTime, int beginNodeId, int endNodeId, int blockId){
+		this.begin("flow-block");
+		this.event.append("\"transmission-timestamp\":").append(transmissionTime).append(',');
+		this.event.append("\"reception-timestamp\":").append(receptionTime).append(',');
+		this.event.append("\"begin-node-id\":").append(beginNodeId).append(',');
+		this.event.append("\"end-node-id\":").append(endNodeId).append(',');
+		this.event.append("\"block-id\":").append(blockId);
+		this.end();
+	}
+
+	// the last event, so it closes the array
+	public synchronized void simulationEnd(long time){
+		this.begin("simulation-end");
+		this.event.append("\"timestamp\":").append(time);
+		this.event.append("}}]");
+		this.out.append(this.event);
+	}
+
+	public synchronized void close(){
+		this.out.close();
+	}
+
+	private void begin(String kind){
+		this.event.setLength(0);
+		this.event.append("{\"kind\":\"").append(kind).append("\",\"content\":{");
+	}
+
+	private void end(){
+		this.event.append("}},");
+		this.out.append(this.event);
+	}
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator.taskQueue;
+
+// Pending events of the simulator ordered by ScheduledTask.compareTo
+public abstract class AbstractTaskQueue {
+	public abstract void add(ScheduledTask task);
+	public abstract ScheduledTask peek();
+	public abstract ScheduledTask poll();
+	public abstract boolean remove(ScheduledTask task);
+	public abstract int size();
+
+	public boolean isEmpty(){ return this.size() == 0; }
+
+	public static AbstractTaskQueue create(String taskQueueName){
+		try {
+			return (AbstractTaskQueue) Class.forName(taskQueueName).getConstructor().newInstance();
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unknown task queue: " + taskQueueName, e);
+		}
+	}
+}
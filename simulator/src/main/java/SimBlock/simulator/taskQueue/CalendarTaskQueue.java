@@ -0,0 +1,198 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator.taskQueue;
+
+// Calendar queue (R. Brown, 1988): O(1) amortized add/poll while the bucket width
+// tracks the spacing of the pending events. Buckets are sorted linked lists through
+// ScheduledTask.next, so removal only scans a single (short) bucket.
+public class CalendarTaskQueue extends AbstractTaskQueue {
+	private static final int MIN_BUCKETS = 2;
+	private static final int SAMPLE_SIZE = 25;
+
+	private ScheduledTask[] buckets;
+	private int mask;
+	private long width;
+	private int size = 0;
+	private int lastBucket;
+	private long bucketTop;
+	private int topThreshold;
+	private int bottomThreshold;
+	private boolean resizeEnabled = true;
+
+	public CalendarTaskQueue(){
+		this.init(MIN_BUCKETS, 1, 0L);
+	}
+
+	public void add(ScheduledTask task){
+		this.insert(task);
+		if(this.size > this.topThreshold){
+			this.resize(this.buckets.length * 2);
+		}
+	}
+
+	public ScheduledTask peek(){
+		int bucket = this.findMin();
+		return bucket < 0 ? null : this.buckets[bucket];
+	}
+
+	public ScheduledTask poll(){
+		int bucket = this.findMin();
+		if(bucket < 0) return null;
+		ScheduledTask head = this.buckets[bucket];
+		this.buckets[bucket] = head.next;
+		head.next = null;
+		head.index = -1;
+		this.size--;
+		if(this.size < this.bottomThreshold){
+			this.resize(this.buckets.length / 2);
+		}
+		return head;
+	}
+
+	public boolean remove(ScheduledTask task){
+		int bucket = task.index;
+		if(bucket < 0 || bucket >= this.buckets.length) return false;
+		ScheduledTask prev = null;
+		for(ScheduledTask entry = this.buckets[bucket]; entry != null; prev = entry, entry = entry.next){
+			if(entry == task){
+				if(prev == null){
+					this.buckets[bucket] = entry.next;
+				}else{
+					prev.next = entry.next;
+				}
+				task.next = null;
+				task.index = -1;
+				this.size--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int size(){ return this.size; }
+
+	private void init(int nBuckets, long width, long startTime){
+		this.buckets = new ScheduledTask[nBuckets];
+		this.mask = nBuckets - 1;
+		this.width = width;
+		this.topThreshold = nBuckets * 2;
+		this.bottomThreshold = nBuckets <= MIN_BUCKETS ? -1 : nBuckets / 2 - 2;
+		this.moveCursor(startTime);
+	}
+
+	private int bucketOf(long time){
+		return (int) (Math.floorDiv(time, this.width) & this.mask);
+	}
+
+	private void moveCursor(long time){
+		this.lastBucket = this.bucketOf(time);
+		this.bucketTop = (Math.floorDiv(time, this.width) + 1) * this.width;
+	}
+
+	private void insert(ScheduledTask task){
+		long time = task.getScheduledTime();
+		int bucket = this.bucketOf(time);
+		ScheduledTask prev = null;
+		ScheduledTask entry = this.buckets[bucket];
+		while(entry != null && entry.compareTo(task) <= 0){
+			prev = entry;
+			entry = entry.next;
+		}
+		task.next = entry;
+		if(prev == null){
+			this.buckets[bucket] = task;
+		}else{
+			prev.next = task;
+		}
+		task.index = bucket;
+		this.size++;
+		// an event earlier than the current year of the cursor would otherwise be skipped
+		if(time < this.bucketTop - this.width){
+			this.moveCursor(time);
+		}
+	}
+
+	// returns the bucket whose head is the earliest pending task, -1 if empty
+	private int findMin(){
+		if(this.size == 0) return -1;
+		int bucket = this.lastBucket;
+		long top = this.bucketTop;
+		for(int n = 0; n < this.buckets.length; n++){
+			ScheduledTask head = this.buckets[bucket];
+			if(head != null && head.getScheduledTime() < top){
+				this.lastBucket = bucket;
+				this.bucketTop = top;
+				return bucket;
+			}
+			bucket = (bucket + 1) & this.mask;
+			top += this.width;
+		}
+		// nothing within one year of the cursor: fall back to a direct search
+		ScheduledTask min = null;
+		for(ScheduledTask head : this.buckets){
+			if(head != null && (min == null || head.compareTo(min) < 0)) min = head;
+		}
+		this.moveCursor(min.getScheduledTime());
+		return this.lastBucket;
+	}
+
+	private void resize(int nBuckets){
+		if(!this.resizeEnabled || nBuckets < MIN_BUCKETS) return;
+		long newWidth = this.sampleWidth();
+		ScheduledTask[] oldBuckets = this.buckets;
+		long minTime = Long.MAX_VALUE;
+		this.init(nBuckets, newWidth, 0L);
+		this.size = 0;
+		for(ScheduledTask head : oldBuckets){
+			ScheduledTask entry = head;
+			while(entry != null){
+				ScheduledTask next = entry.next;
+				minTime = Math.min(minTime, entry.getScheduledTime());
+				this.insert(entry);
+				entry = next;
+			}
+		}
+		this.moveCursor(minTime == Long.MAX_VALUE ? 0L : minTime);
+	}
+
+	// estimates the bucket width from the spacing of the earliest pending events
+	private long sampleWidth(){
+		int n = Math.min(this.size, SAMPLE_SIZE);
+		if(n < 2) return this.width;
+		this.resizeEnabled = false;
+		ScheduledTask[] sample = new ScheduledTask[n];
+		for(int i = 0; i < n; i++){
+			sample[i] = this.poll();
+		}
+		for(ScheduledTask task : sample){
+			this.insert(task);
+		}
+		this.resizeEnabled = true;
+
+		double average = (double) (sample[n - 1].getScheduledTime() - sample[0].getScheduledTime()) / (n - 1);
+		long total = 0;
+		int count = 0;
+		for(int i = 1; i < n; i++){
+			long separation = sample[i].getScheduledTime() - sample[i - 1].getScheduledTime();
+			if(separation <= average * 2){
+				total += separation;
+				count++;
+			}
+		}
+		double separation = count > 0 ? (double) total / count : average;
+		return Math.max(1L, (long) Math.ceil(separation * 3));
+	}
+}
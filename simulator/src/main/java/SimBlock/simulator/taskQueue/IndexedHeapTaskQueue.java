@@ -0,0 +1,97 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator.taskQueue;
+
+import java.util.Arrays;
+
+// d-ary min-heap where every entry remembers its own slot, so cancelling a task is O(log n)
+public class IndexedHeapTaskQueue extends AbstractTaskQueue {
+	private static final int ARITY = 4;
+
+	private ScheduledTask[] heap = new ScheduledTask[64];
+	private int size = 0;
+
+	public void add(ScheduledTask task){
+		if(this.size == this.heap.length){
+			this.heap = Arrays.copyOf(this.heap, this.size * 2);
+		}
+		this.siftUp(this.size++, task);
+	}
+
+	public ScheduledTask peek(){
+		return this.size > 0 ? this.heap[0] : null;
+	}
+
+	public ScheduledTask poll(){
+		if(this.size == 0) return null;
+		ScheduledTask head = this.heap[0];
+		this.removeAt(0);
+		return head;
+	}
+
+	public boolean remove(ScheduledTask task){
+		int index = task.index;
+		if(index < 0 || index >= this.size || this.heap[index] != task) return false;
+		this.removeAt(index);
+		return true;
+	}
+
+	public int size(){ return this.size; }
+
+	private void removeAt(int index){
+		ScheduledTask removed = this.heap[index];
+		removed.index = -1;
+		ScheduledTask last = this.heap[--this.size];
+		this.heap[this.size] = null;
+		if(index == this.size) return;
+		if(index > 0 && last.compareTo(this.heap[(index - 1) / ARITY]) < 0){
+			this.siftUp(index, last);
+		}else{
+			this.siftDown(index, last);
+		}
+	}
+
+	private void siftUp(int index, ScheduledTask task){
+		while(index > 0){
+			int parent = (index - 1) / ARITY;
+			ScheduledTask p = this.heap[parent];
+			if(task.compareTo(p) >= 0) break;
+			this.heap[index] = p;
+			p.index = index;
+			index = parent;
+		}
+		this.heap[index] = task;
+		task.index = index;
+	}
+
+	private void siftDown(int index, ScheduledTask task){
+		while(true){
+			int first = index * ARITY + 1;
+			if(first >= this.size) break;
+			int last = Math.min(first + ARITY, this.size);
+			int min = first;
+			for(int child = first + 1; child < last; child++){
+				if(this.heap[child].compareTo(this.heap[min]) < 0) min = child;
+			}
+			if(task.compareTo(this.heap[min]) <= 0) break;
+			this.heap[index] = this.heap[min];
+			this.heap[index].index = index;
+			index = min;
+		}
+		this.heap[index] = task;
+		task.index = index;
+	}
+}
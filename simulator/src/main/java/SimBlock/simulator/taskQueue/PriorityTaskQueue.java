@@ -0,0 +1,29 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator.taskQueue;
+
+import java.util.PriorityQueue;
+
+// The original engine: java.util.PriorityQueue, removal is a linear scan
+public class PriorityTaskQueue extends AbstractTaskQueue {
+	private PriorityQueue<ScheduledTask> queue = new PriorityQueue<ScheduledTask>();
+
+	public void add(ScheduledTask task){ this.queue.add(task); }
+	public ScheduledTask peek(){ return this.queue.peek(); }
+	public ScheduledTask poll(){ return this.queue.poll(); }
+	public boolean remove(ScheduledTask task){ return this.queue.remove(task); }
+	public int size(){ return this.queue.size(); }
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator.taskQueue;
+
+import SimBlock.task.Task;
+
+public class ScheduledTask implements Comparable<ScheduledTask> {
+	private final Task task;
+	private final long scheduledTime;
+	// breaks ties between tasks scheduled for the same time, see LogicalProcess.newScheduledTask
+	private final long sequence;
+
+	// position of this entry inside the queue holding it (heap slot or calendar bucket), -1 if not queued
+	int index = -1;
+	// next entry in the same calendar bucket
+	ScheduledTask next;
+
+	public ScheduledTask(Task task, long scheduledTime, long sequence){
+		this.task = task;
+		this.scheduledTime = scheduledTime;
+		this.sequence = sequence;
+	}
+
+	public Task getTask(){ return this.task; }
+	public long getScheduledTime(){ return this.scheduledTime; }
+	public long getSequence(){ return this.sequence; }
+
+	public int compareTo(ScheduledTask o) {
+		int order = Long.compare(this.scheduledTime, o.scheduledTime);
+		if(order != 0) return order;
+		return Long.compare(this.sequence, o.sequence);
+	}
+}
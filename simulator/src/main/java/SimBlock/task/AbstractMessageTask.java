@@ -31,10 +31,16 @@ public abstract class AbstractMessageTask implements Task{
 	public Node getTo(){ return this.to; }
 
 	public long getInterval(){
-		long latency = getLatency(this.from.getRegion(), this.to.getRegion());
+		long latency = getLatency(this.from, this.to, this.getNumber());
 		return (long)(latency + 10);
 	}
 
+	// tells this message apart from the others between the same nodes, which have their own
+	// random latencies: the block it is about and the kind of message
+	protected long getNumber(){
+		return 0;
+	}
+
 	public void run(){
 		this.to.receiveMessage(this);
 	}
@@ -15,7 +15,7 @@
  */
 package SimBlock.task;
 
-import static SimBlock.simulator.Main.*;
+import static SimBlock.simulator.Simulator.*;
 import static SimBlock.simulator.Network.*;
 import static SimBlock.simulator.Timer.*;
 
@@ -30,7 +30,7 @@ public class BlockMessageTask extends AbstractMessageTask {
 	public BlockMessageTask(Node from, Node to, Block block ,long delay) {
 		super(from, to);
 		this.block = block;
-		this.interval = getLatency(this.getFrom().getRegion(), this.getTo().getRegion()) + delay;
+		this.interval = getLatency(this.getFrom(), this.getTo(), this.getNumber()) + delay;
 	}
 
 	public long getInterval(){
@@ -38,19 +38,8 @@ public class BlockMessageTask extends AbstractMessageTask {
 	}
 
 	public void run(){
-		this.getFrom().sendNextBlockMessage();
-		
-		OUT_JSON_FILE.print("{");
-		OUT_JSON_FILE.print(	"\"kind\":\"flow-block\",");
-		OUT_JSON_FILE.print(	"\"content\":{");
-		OUT_JSON_FILE.print(		"\"transmission-timestamp\":" + (getCurrentTime() - this.interval) + ",");
-		OUT_JSON_FILE.print(		"\"reception-timestamp\":" + getCurrentTime() + ",");
-		OUT_JSON_FILE.print(		"\"begin-node-id\":" + getFrom().getNodeID() + ",");
-		OUT_JSON_FILE.print(		"\"end-node-id\":" + getTo().getNodeID() + ",");
-		OUT_JSON_FILE.print(		"\"block-id\":" + block.getId());
-		OUT_JSON_FILE.print(	"}");
-		OUT_JSON_FILE.print("},");
-		OUT_JSON_FILE.flush();
+		onCommit(() -> getEventSink().flowBlock(getCurrentTime() - this.interval, getCurrentTime(),
+			getFrom().getNodeID(), getTo().getNodeID(), block.getId()));
 
 		super.run();
 	}
@@ -59,5 +48,10 @@ public class BlockMessageTask extends AbstractMessageTask {
 		return this.block;
 	}
 
+	@Override
+	protected long getNumber(){
+		return this.block.getId() * 8L + 3;
+	}
+
 
 }
@@ -0,0 +1,33 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.task;
+
+import SimBlock.block.Block;
+import SimBlock.node.Node;
+
+// A compact block (BIP 152): the receiver rebuilds the block from its mempool,
+// or asks for the full block if transactions are missing
+public class CompactBlockMessageTask extends BlockMessageTask {
+
+	public CompactBlockMessageTask(Node from, Node to, Block block, long delay) {
+		super(from, to, block, delay);
+	}
+
+	@Override
+	protected long getNumber(){
+		return this.getBlock().getId() * 8L + 4;
+	}
+}
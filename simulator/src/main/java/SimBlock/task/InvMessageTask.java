@@ -15,20 +15,37 @@
  */
 package SimBlock.task;
 
+import java.util.Collections;
+import java.util.List;
+
 import SimBlock.block.Block;
 import SimBlock.node.Node;
 
 public class InvMessageTask extends AbstractMessageTask {
 	
-	private Block block;
+	// announced together, in the order the sender got them
+	private List<Block> blocks;
 	
 	public InvMessageTask(Node from, Node to, Block block) {
+		this(from, to, Collections.singletonList(block));
+	}
+
+	public InvMessageTask(Node from, Node to, List<Block> blocks) {
 		super(from, to);
-		this.block = block;
+		this.blocks = blocks;
 	}
 
 	public Block getBlock(){
-		return this.block;
+		return this.blocks.get(0);
+	}
+
+	public List<Block> getBlocks(){
+		return this.blocks;
+	}
+
+	@Override
+	protected long getNumber(){
+		return this.getBlock().getId() * 8L;
 	}
 
 }
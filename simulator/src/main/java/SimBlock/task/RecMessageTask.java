@@ -21,14 +21,30 @@ import SimBlock.node.Node;
 public class RecMessageTask extends AbstractMessageTask {
 	
 	private Block block;
+	// a compact block is requested instead of the full block
+	private boolean compact;
 
 	public RecMessageTask(Node from, Node to, Block block) {
+		this(from, to, block, false);
+	}
+
+	public RecMessageTask(Node from, Node to, Block block, boolean compact) {
 		super(from, to);
 		this.block = block;
+		this.compact = compact;
 	}
 	
 	public Block getBlock(){
 		return this.block;
 	}
+
+	public boolean isCompact(){
+		return this.compact;
+	}
+
+	@Override
+	protected long getNumber(){
+		return this.block.getId() * 8L + (this.compact ? 2 : 1);
+	}
 	
 }
@@ -15,16 +15,15 @@
  */
 package SimBlock.task;
 
+import SimBlock.block.Amount;
 import SimBlock.block.SampleProofOfStakeBlock;
 import SimBlock.node.Node;
 import static SimBlock.simulator.Timer.*;
 
-import java.math.BigInteger;
-
 public class SampleStakingTask extends AbstractMintingTask {
-	private BigInteger difficulty;
+	private Amount difficulty;
 
-	public SampleStakingTask(Node minter, long interval, int Noncenya, BigInteger difficulty) {
+	public SampleStakingTask(Node minter, long interval, int Noncenya, Amount difficulty) {
 		super(minter, interval, Noncenya);
 		this.difficulty = difficulty;
 	}
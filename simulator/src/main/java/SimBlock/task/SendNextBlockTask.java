@@ -0,0 +1,42 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.task;
+
+import SimBlock.node.Node;
+
+// Lets the sender of a block start its next upload once the transfer is done. The sender
+// runs it itself, so its uploads do not depend on which node receives the block or where.
+public class SendNextBlockTask implements Task {
+	private Node node;
+	private long interval;
+
+	public SendNextBlockTask(Node node, long interval) {
+		this.node = node;
+		this.interval = interval;
+	}
+
+	public Node getNode(){
+		return this.node;
+	}
+
+	public long getInterval(){
+		return this.interval;
+	}
+
+	public void run(){
+		this.node.sendNextBlockMessage();
+	}
+}
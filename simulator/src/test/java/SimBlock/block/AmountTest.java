@@ -0,0 +1,130 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.block;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+// Amount.multiply(double) takes a long-only path for most inputs; it must always give
+// what the BigDecimal product truncated by toBigInteger() gives.
+public class AmountTest {
+	private static void check(BigInteger value, double factor){
+		BigInteger expected = new BigDecimal(value).multiply(new BigDecimal(factor)).toBigInteger();
+		Amount product = Amount.valueOf(value).multiply(factor);
+		assertEquals(value + " * " + factor, expected, product.toBigInteger());
+		// a product that fits in a long is kept as one
+		assertEquals(value + " * " + factor, Amount.valueOf(expected), product);
+	}
+
+	private static List<BigInteger> values(Random random){
+		List<BigInteger> values = new ArrayList<BigInteger>();
+		long[] longs = { 0, 1, 2, 3, 7, 1000, 1L << 31, 1L << 52, (1L << 53) + 1, 1L << 62, (1L << 62) + 1,
+				Long.MAX_VALUE, Long.MAX_VALUE - 1, Long.MAX_VALUE / 2, Long.MAX_VALUE / 3, -1, -1000, Long.MIN_VALUE };
+		for(long value : longs) values.add(BigInteger.valueOf(value));
+		for(int i = 0; i < 40; i++){
+			values.add(BigInteger.valueOf(random.nextLong() >>> random.nextInt(64)));
+		}
+		// values that do not fit in a long
+		values.add(BigInteger.ONE.shiftLeft(63));
+		values.add(BigInteger.ONE.shiftLeft(100).add(BigInteger.ONE));
+		values.add(BigInteger.ONE.shiftLeft(70).negate());
+		return values;
+	}
+
+	private static List<Double> factors(Random random){
+		List<Double> factors = new ArrayList<Double>();
+		double[] doubles = { 0.0, -0.0, 0.5, 1.0, 1.5, 2.0, 0.1, 0.9999999999999999, 1.0000000000000002, 3.3e-5, 1e10, 1e19,
+				-0.5, -2.0, Double.MIN_VALUE, 2 * Double.MIN_VALUE, Double.MIN_NORMAL, Math.nextDown(Double.MIN_NORMAL),
+				Double.MAX_VALUE };
+		for(double factor : doubles) factors.add(factor);
+		// powers of two and their neighbours, which put the binary exponent on every shift
+		// from the subnormal range up past 2^64, including shifts of 63, 64 and 128
+		for(int exponent = -1080; exponent <= 70; exponent++){
+			double power = Math.scalb(1.0, exponent);
+			factors.add(power);
+			factors.add(Math.nextUp(power));
+			factors.add(Math.nextDown(power));
+			factors.add(power * 1.75);
+		}
+		for(int i = 0; i < 40; i++){
+			factors.add(random.nextDouble());
+			factors.add(random.nextDouble() * Math.scalb(1.0, random.nextInt(140) - 70));
+			factors.add(Double.longBitsToDouble(random.nextLong() & 0xfffffffffffffL));
+		}
+		return factors;
+	}
+
+	@Test
+	public void multiplyMatchesBigDecimal(){
+		Random random = new Random(1);
+		List<Double> factors = factors(random);
+		for(BigInteger value : values(random)){
+			for(double factor : factors){
+				check(value, factor);
+			}
+		}
+	}
+
+	@Test
+	public void aroundTheLongRange(){
+		// products just below, at and just above 2^63
+		BigInteger max = BigInteger.valueOf(Long.MAX_VALUE);
+		check(max, 1.0);
+		check(max, Math.nextUp(1.0));
+		check(max, Math.nextDown(1.0));
+		check(BigInteger.ONE.shiftLeft(62), 2.0);
+		check(BigInteger.ONE.shiftLeft(62), Math.nextDown(2.0));
+		check(BigInteger.ONE.shiftLeft(62).subtract(BigInteger.ONE), 2.0);
+		check(BigInteger.ONE, Math.scalb(1.0, 62));
+		check(BigInteger.ONE, Math.scalb(1.0, 63));
+		check(BigInteger.ONE, Math.scalb(1.0, 64));
+		check(BigInteger.valueOf(3), Math.scalb(1.0, 61));
+		check(BigInteger.valueOf(3), Math.nextDown(Math.scalb(1.0, 61)));
+		check(BigInteger.valueOf((1L << 53) - 1), Math.scalb(1.0, 10));
+		check(BigInteger.valueOf((1L << 53) - 1), Math.scalb(1.0, 11));
+		check(max, Math.scalb(1.0, -63));
+		check(max, Math.scalb(1.0, -64));
+		check(max, Math.nextDown(Math.scalb(1.0, -62)));
+	}
+
+	@Test
+	public void randomProducts(){
+		Random random = new Random(2);
+		for(int i = 0; i < 200000; i++){
+			long value = random.nextLong() >>> random.nextInt(64);
+			double factor = Double.longBitsToDouble(random.nextLong() >>> 1);
+			if(Double.isNaN(factor) || Double.isInfinite(factor)) continue;
+			check(BigInteger.valueOf(value), factor);
+		}
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void multiplyByInfinity(){
+		Amount.valueOf(1).multiply(Double.POSITIVE_INFINITY);
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void multiplyByNaN(){
+		Amount.valueOf(1).multiply(Double.NaN);
+	}
+}
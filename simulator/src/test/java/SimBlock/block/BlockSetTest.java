@@ -0,0 +1,143 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.block;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+// BlockSet against a TreeSet of store indices: groups of 65536 ids switch from a sorted
+// array to a bitmap above 4096 ids and back below 2048, and are created and dropped as
+// ids come and go.
+public class BlockSetTest {
+	private static final int GROUPS = 4;
+	private static Block[] blocks;
+
+	@BeforeClass
+	public static void createBlocks(){
+		BlockStore store = new BlockStore(0);
+		blocks = new Block[GROUPS << 16];
+		for(int i = 0; i < blocks.length; i++){
+			blocks[i] = new Block(store, null);
+		}
+	}
+
+	private static void checkSame(TreeSet<Integer> expected, BlockSet set){
+		assertEquals(expected.size(), set.size());
+		Iterator<Block> iterator = set.iterator();
+		for(int id : expected){
+			assertTrue(iterator.hasNext());
+			assertSame(blocks[id], iterator.next());
+		}
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void aroundTheThresholds(){
+		BlockSet set = new BlockSet();
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+		int base = 1 << 16;
+		// a neighbouring group so that the one switching is not the only one
+		set.add(blocks[3]);
+		expected.add(3);
+		for(int i = 0; i < 4100; i++){
+			int id = base + (i * 7919) % 65536;
+			assertTrue(set.add(blocks[id]));
+			assertFalse(set.add(blocks[id]));
+			expected.add(id);
+			if(i >= 4090) checkSame(expected, set);
+		}
+		List<Integer> ids = new ArrayList<Integer>(expected.tailSet(base));
+		for(int i = 0; i < ids.size(); i++){
+			int id = ids.get(i);
+			assertTrue(set.remove(blocks[id]));
+			assertFalse(set.remove(blocks[id]));
+			assertFalse(set.contains(blocks[id]));
+			expected.remove(id);
+			int left = ids.size() - i - 1;
+			if((left >= 2040 && left <= 2050) || left < 3) checkSame(expected, set);
+		}
+		checkSame(expected, set);
+		// the emptied group is gone and can come back
+		assertTrue(set.add(blocks[base + 5]));
+		expected.add(base + 5);
+		checkSame(expected, set);
+	}
+
+	@Test
+	public void randomOperations(){
+		for(long seed = 0; seed < 4; seed++){
+			Random random = new Random(seed);
+			BlockSet set = new BlockSet();
+			TreeSet<Integer> expected = new TreeSet<Integer>();
+			for(int phase = 0; phase < 16; phase++){
+				// alternately fill and drain a few groups, each through a small window of ids
+				// so that bitmap groups reach the threshold in both directions
+				double addShare = phase % 2 == 0 ? 0.8 : 0.2;
+				int group = random.nextInt(GROUPS);
+				int window = 1 + random.nextInt(12000);
+				for(int n = 0; n < 15000; n++){
+					int id = random.nextInt(8) == 0 ? random.nextInt(blocks.length) : (group << 16) + random.nextInt(window);
+					Block block = blocks[id];
+					if(random.nextDouble() < addShare){
+						assertEquals(expected.add(id), set.add(block));
+					}else{
+						assertEquals(expected.remove(id), set.remove(block));
+					}
+					int probe = random.nextInt(blocks.length);
+					assertEquals(expected.contains(probe), set.contains(blocks[probe]));
+					assertEquals(expected.size(), set.size());
+					if(n % 1000 == 0) checkSame(expected, set);
+				}
+				checkSame(expected, set);
+				checkSame(expected, new BlockSet(set));
+			}
+			set.clear();
+			expected.clear();
+			checkSame(expected, set);
+		}
+	}
+
+	@Test
+	public void copyIsIndependent(){
+		BlockSet set = new BlockSet();
+		for(int i = 0; i < 5000; i++) set.add(blocks[i]);
+		set.add(blocks[(2 << 16) + 1]);
+		BlockSet copy = new BlockSet(set);
+		copy.remove(blocks[0]);
+		copy.add(blocks[(3 << 16) + 1]);
+		assertTrue(set.contains(blocks[0]));
+		assertFalse(set.contains(blocks[(3 << 16) + 1]));
+		assertEquals(5001, set.size());
+		assertEquals(5001, copy.size());
+	}
+
+	@Test
+	public void otherObjects(){
+		BlockSet set = new BlockSet();
+		set.add(blocks[1]);
+		assertFalse(set.contains("1"));
+		assertFalse(set.remove(Integer.valueOf(1)));
+		assertEquals(1, set.size());
+	}
+}
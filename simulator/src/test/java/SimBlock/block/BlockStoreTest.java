@@ -0,0 +1,92 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.block;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+// BlockStore.getAncestor follows skip pointers; every answer must match a walk over parents.
+public class BlockStoreTest {
+	// a parent walk from block id down to height, -1 if there is no block at that height
+	private static int walkParents(BlockStore store, int id, int height){
+		if(height < 0 || height > store.getHeight(id)) return -1;
+		int walk = id;
+		while(store.getHeight(walk) > height){
+			walk = store.getParentId(walk);
+		}
+		return walk;
+	}
+
+	private static void checkAllHeights(BlockStore store, int id){
+		int height = store.getHeight(id);
+		for(int h = -2; h <= height + 2; h++){
+			assertEquals("ancestor of " + id + " at " + h, walkParents(store, id, h), store.getAncestor(id, h));
+		}
+		assertEquals(id, store.getAncestor(id, height));
+		assertNull(store.getBlock(store.getAncestor(id, height + 1)));
+		assertNull(store.getBlock(store.getAncestor(id, -1)));
+		assertNull(store.getBlock(store.getAncestor(id, Integer.MAX_VALUE)));
+		assertNull(store.getBlock(store.getAncestor(id, Integer.MIN_VALUE)));
+	}
+
+	@Test
+	public void singleChain(){
+		BlockStore store = new BlockStore(0);
+		int tip = store.add(null, -1, null, 0, 0);
+		checkAllHeights(store, tip);
+		for(int i = 1; i < 1500; i++){
+			tip = store.add(null, tip, null, i, 0);
+			checkAllHeights(store, tip);
+		}
+	}
+
+	@Test
+	public void randomForks(){
+		for(long seed = 0; seed < 5; seed++){
+			Random random = new Random(seed);
+			BlockStore store = new BlockStore(0);
+			store.add(null, -1, null, 0, 0);
+			for(int i = 1; i < 3000; i++){
+				// mostly extend one of the newest blocks, so chains grow long and fork often
+				int parent = random.nextInt(10) == 0 ? random.nextInt(i) : Math.max(0, i - 1 - random.nextInt(4));
+				store.add(null, parent, null, i, 0);
+			}
+			for(int n = 0; n < 300; n++){
+				checkAllHeights(store, random.nextInt(store.size()));
+			}
+		}
+	}
+
+	@Test
+	public void severalGenesisBlocks(){
+		// a second tree in the same store must not reach into the first one
+		BlockStore store = new BlockStore(0);
+		int first = store.add(null, -1, null, 0, 0);
+		int second = store.add(null, -1, null, 0, 0);
+		int a = first, b = second;
+		for(int i = 0; i < 200; i++){
+			a = store.add(null, a, null, i, 0);
+			b = store.add(null, b, null, i, 0);
+		}
+		checkAllHeights(store, a);
+		checkAllHeights(store, b);
+		assertEquals(first, store.getAncestor(a, 0));
+		assertEquals(second, store.getAncestor(b, 0));
+	}
+}
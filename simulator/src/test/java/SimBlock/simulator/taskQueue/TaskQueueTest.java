@@ -0,0 +1,175 @@
+/**
+ * Copyright 2019 Distributed Systems Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package SimBlock.simulator.taskQueue;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import SimBlock.task.Task;
+
+// Every task queue against java.util.PriorityQueue as the reference, with many tasks
+// sharing a time so that the order falls back to the sequence numbers.
+@RunWith(Parameterized.class)
+public class TaskQueueTest {
+	private static final Task TASK = new Task(){
+		public long getInterval(){ return 0; }
+		public void run(){}
+	};
+
+	@Parameters(name = "{0}")
+	public static Collection<Object[]> queues(){
+		return Arrays.asList(new Object[][]{
+			{ PriorityTaskQueue.class.getName() },
+			{ IndexedHeapTaskQueue.class.getName() },
+			{ CalendarTaskQueue.class.getName() }
+		});
+	}
+
+	private final String queueName;
+	private long sequence = 0;
+
+	public TaskQueueTest(String queueName){
+		this.queueName = queueName;
+	}
+
+	private ScheduledTask newTask(long time){
+		return new ScheduledTask(TASK, time, this.sequence++);
+	}
+
+	// random adds, polls and removals; times are drawn from a few values after the
+	// last polled one, and sometimes before it, which moves the calendar's cursor back
+	private void checkRandomOperations(long seed, int operations, int timeRange, double addShare){
+		Random random = new Random(seed);
+		AbstractTaskQueue queue = AbstractTaskQueue.create(this.queueName);
+		PriorityQueue<ScheduledTask> reference = new PriorityQueue<ScheduledTask>();
+		List<ScheduledTask> pending = new ArrayList<ScheduledTask>();
+		List<ScheduledTask> gone = new ArrayList<ScheduledTask>();
+		long now = 0;
+		for(int n = 0; n < operations; n++){
+			double op = random.nextDouble();
+			if(op < addShare){
+				long time = random.nextInt(20) == 0 ? Math.max(0, now - random.nextInt(timeRange)) : now + random.nextInt(timeRange);
+				ScheduledTask task = this.newTask(time);
+				queue.add(task);
+				reference.add(task);
+				pending.add(task);
+			}else if(op < addShare + (1 - addShare) / 2){
+				ScheduledTask expected = reference.poll();
+				assertSame(expected, queue.poll());
+				if(expected != null){
+					now = expected.getScheduledTime();
+					pending.remove(expected);
+					gone.add(expected);
+				}
+			}else if(!pending.isEmpty()){
+				ScheduledTask task = pending.remove(random.nextInt(pending.size()));
+				assertTrue(reference.remove(task));
+				assertTrue(queue.remove(task));
+				gone.add(task);
+			}else if(!gone.isEmpty()){
+				assertFalse(queue.remove(gone.get(random.nextInt(gone.size()))));
+			}
+			assertEquals(reference.size(), queue.size());
+			assertSame(reference.peek(), queue.peek());
+		}
+		ScheduledTask expected;
+		while((expected = reference.poll()) != null){
+			assertSame(expected, queue.poll());
+		}
+		assertNull(queue.poll());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void randomOperationsWithManyTies(){
+		for(long seed = 0; seed < 20; seed++){
+			this.checkRandomOperations(seed, 5000, 3, 0.5);
+		}
+	}
+
+	@Test
+	public void randomOperationsWithSpreadTimes(){
+		for(long seed = 0; seed < 20; seed++){
+			this.checkRandomOperations(seed, 5000, 100000, 0.5);
+		}
+	}
+
+	@Test
+	public void growAndShrink(){
+		// mostly adds, then mostly polls, so the calendar resizes in both directions
+		for(long seed = 0; seed < 10; seed++){
+			this.checkRandomOperations(seed, 20000, 1000, 0.9);
+			this.checkRandomOperations(seed, 20000, 1000, 0.1);
+		}
+	}
+
+	@Test
+	public void sameTimeFollowsSequence(){
+		AbstractTaskQueue queue = AbstractTaskQueue.create(this.queueName);
+		List<ScheduledTask> tasks = new ArrayList<ScheduledTask>();
+		for(int i = 0; i < 1000; i++){
+			tasks.add(this.newTask(42));
+		}
+		List<ScheduledTask> shuffled = new ArrayList<ScheduledTask>(tasks);
+		java.util.Collections.shuffle(shuffled, new Random(1));
+		for(ScheduledTask task : shuffled){
+			queue.add(task);
+		}
+		for(ScheduledTask task : tasks){
+			assertSame(task, queue.poll());
+		}
+		assertNull(queue.poll());
+	}
+
+	@Test
+	public void removeUnknownTask(){
+		AbstractTaskQueue queue = AbstractTaskQueue.create(this.queueName);
+		ScheduledTask task = this.newTask(10);
+		assertFalse(queue.remove(task));
+		queue.add(task);
+		assertTrue(queue.remove(task));
+		assertFalse(queue.remove(task));
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void widelySpacedTimes(){
+		// gaps far larger than a calendar year force the direct search for the minimum
+		AbstractTaskQueue queue = AbstractTaskQueue.create(this.queueName);
+		PriorityQueue<ScheduledTask> reference = new PriorityQueue<ScheduledTask>();
+		Random random = new Random(7);
+		for(int i = 0; i < 200; i++){
+			ScheduledTask task = this.newTask(random.nextInt(3) == 0 ? random.nextInt(10) : (long) random.nextInt(1000) * 1000000000L);
+			queue.add(task);
+			reference.add(task);
+		}
+		ScheduledTask expected;
+		while((expected = reference.poll()) != null){
+			assertSame(expected, queue.poll());
+		}
+	}
+}